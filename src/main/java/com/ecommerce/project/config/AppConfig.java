@@ -3,11 +3,13 @@ package com.ecommerce.project.config;
 import org.modelmapper.ModelMapper;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Lazy;
 
 @Configuration
 public class AppConfig {
 
     @Bean
+    @Lazy
     public ModelMapper modelMapper(){
         return new ModelMapper();
     }
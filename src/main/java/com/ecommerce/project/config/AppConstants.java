@@ -6,5 +6,7 @@ public class AppConstants {
     public static final String SORT_CATEGORIES_BY = "categoryId";
     public static final String SORT_DIR = "asc";
     public static final String SORT_PRODUCTS_BY = "productId";
+    public static final String IMPORT_BATCH_SIZE = "500";
+    public static final String PRICE_BUCKET_SIZE = "50";
 
 }
@@ -0,0 +1,58 @@
+package com.ecommerce.project.config;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnThreading;
+import org.springframework.boot.autoconfigure.thread.Threading;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Lazy;
+import org.springframework.core.task.AsyncTaskExecutor;
+import org.springframework.core.task.SimpleAsyncTaskExecutor;
+import org.springframework.scheduling.annotation.EnableScheduling;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+
+import java.util.concurrent.ThreadPoolExecutor;
+
+@Configuration
+@EnableScheduling
+public class AsyncConfig {
+
+    public static final String IMAGE_EXECUTOR = "imageProcessingExecutor";
+
+    @Value("${project.image.workers:2}")
+    private int imageWorkers;
+
+    @Value("${project.image.queue-capacity:100}")
+    private int imageQueueCapacity;
+
+    //fila limitada: quando enche o submit falha e o upload responde 429.
+    //@Lazy como o ImageProcessingServiceImpl: as threads so sobem no primeiro upload
+    @Bean(name = IMAGE_EXECUTOR)
+    @Lazy
+    @ConditionalOnThreading(Threading.PLATFORM)
+    public AsyncTaskExecutor imageProcessingExecutor() {
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        executor.setCorePoolSize(imageWorkers);
+        executor.setMaxPoolSize(imageWorkers);
+        executor.setQueueCapacity(imageQueueCapacity);
+        executor.setThreadNamePrefix("image-");
+        executor.setRejectedExecutionHandler(new ThreadPoolExecutor.AbortPolicy());
+        executor.setWaitForTasksToCompleteOnShutdown(true);
+        executor.setAwaitTerminationSeconds(30);
+        return executor;
+    }
+
+    //spring.threads.virtual.enabled=true (Java 21): uma virtual thread por upload, sem fila; o limite
+    //de uploads em andamento continua workers + queue-capacity e acima dele o submit tambem responde 429
+    @Bean(name = IMAGE_EXECUTOR)
+    @Lazy
+    @ConditionalOnThreading(Threading.VIRTUAL)
+    public AsyncTaskExecutor virtualImageProcessingExecutor() {
+        SimpleAsyncTaskExecutor executor = new SimpleAsyncTaskExecutor("image-");
+        executor.setVirtualThreads(true);
+        executor.setConcurrencyLimit(imageWorkers + imageQueueCapacity);
+        executor.setRejectTasksWhenLimitReached(true);
+        executor.setTaskTerminationTimeout(30_000);
+        return executor;
+    }
+}
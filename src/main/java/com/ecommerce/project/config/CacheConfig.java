@@ -0,0 +1,67 @@
+package com.ecommerce.project.config;
+
+import com.ecommerce.project.payload.CategoryResponse;
+import com.ecommerce.project.payload.ProductResponse;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.cache.CacheManager;
+import org.springframework.cache.annotation.EnableCaching;
+import org.springframework.cache.caffeine.CaffeineCacheManager;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import java.time.Duration;
+
+@Configuration
+@EnableCaching
+public class CacheConfig {
+
+    public static final String CATEGORIES = "categories";
+    public static final String CATEGORY_PRODUCTS = "categoryProducts";
+    public static final String CATALOG_VERSIONS = "catalogVersions";
+
+    //limite em numero de linhas (DTOs) guardadas, nao em numero de entradas
+    @Value("${project.cache.max-rows:100000}")
+    private long maxRows;
+
+    @Value("${project.cache.ttl:5m}")
+    private Duration ttl;
+
+    //outra instancia so fica sabendo de uma escrita pelo banco: no maximo este tempo com o ETag anterior
+    @Value("${project.cache.version-ttl:1s}")
+    private Duration versionTtl;
+
+    @Bean
+    public CacheManager cacheManager() {
+        CaffeineCacheManager cacheManager = new CaffeineCacheManager(CATEGORIES, CATEGORY_PRODUCTS) {
+            @Override
+            protected org.springframework.cache.Cache adaptCaffeineCache(String name,
+                                                                         Cache<Object, Object> cache) {
+                return new GenerationGuardedCache(name, cache, isAllowNullValues());
+            }
+        };
+        cacheManager.setCaffeine(Caffeine.newBuilder()
+                .maximumWeight(maxRows)
+                .weigher((key, value) -> weigh(value))
+                .expireAfterWrite(ttl)
+                .recordStats());
+        cacheManager.setAllowNullValues(false);
+        cacheManager.registerCustomCache(CATALOG_VERSIONS, Caffeine.newBuilder()
+                .maximumSize(10_000)
+                .expireAfterWrite(versionTtl)
+                .recordStats()
+                .build());
+        return cacheManager;
+    }
+
+    private static int weigh(Object value) {
+        if (value instanceof ProductResponse productResponse && productResponse.getContent() != null) {
+            return productResponse.getContent().size() + 1;
+        }
+        if (value instanceof CategoryResponse categoryResponse && categoryResponse.getContent() != null) {
+            return categoryResponse.getContent().size() + 1;
+        }
+        return 1;
+    }
+}
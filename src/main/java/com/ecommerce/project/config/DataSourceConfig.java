@@ -0,0 +1,78 @@
+package com.ecommerce.project.config;
+
+import com.zaxxer.hikari.HikariDataSource;
+import com.zaxxer.hikari.metrics.micrometer.MicrometerMetricsTrackerFactory;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceProperties;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Primary;
+import org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy;
+
+import javax.sql.DataSource;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+
+//so entra com replicas configuradas; sem elas o DataSource continua o do auto-configure.
+//o LazyConnectionDataSourceProxy so pega a conexao no primeiro SQL, quando ja sabe se a transacao e read-only
+@Configuration
+@ConditionalOnProperty(name = "project.datasource.replica-urls")
+public class DataSourceConfig {
+
+    @Value("${project.datasource.replica-urls}")
+    private List<String> replicaUrls;
+
+    @Value("${project.datasource.replica-pool-size:10}")
+    private int replicaPoolSize;
+
+    //tempo maximo esperando conexao de uma replica antes de tentar a proxima
+    @Value("${project.datasource.replica-connection-timeout:1s}")
+    private Duration replicaConnectionTimeout;
+
+    @Value("${project.datasource.replica-retry:10s}")
+    private Duration replicaRetry;
+
+    //leituras logo depois de uma escrita vao para o primary, ate as replicas alcancarem
+    @Value("${project.datasource.staleness:2s}")
+    private Duration staleness;
+
+    @Bean
+    @ConfigurationProperties("spring.datasource.hikari")
+    public HikariDataSource primaryDataSource(DataSourceProperties properties) {
+        return properties.initializeDataSourceBuilder().type(HikariDataSource.class).build();
+    }
+
+    @Bean
+    public ReplicaRoutingDataSource replicaDataSource(HikariDataSource primaryDataSource,
+                                                      DataSourceProperties properties, MeterRegistry meterRegistry) {
+        List<HikariDataSource> replicas = new ArrayList<>();
+        for (int i = 0; i < replicaUrls.size(); i++) {
+            HikariDataSource replica = new HikariDataSource();
+            replica.setPoolName("replica-" + (i + 1));
+            replica.setJdbcUrl(replicaUrls.get(i).trim());
+            replica.setUsername(properties.determineUsername());
+            replica.setPassword(properties.determinePassword());
+            replica.setDriverClassName(properties.determineDriverClassName());
+            replica.setReadOnly(true);
+            replica.setMaximumPoolSize(replicaPoolSize);
+            replica.setConnectionTimeout(replicaConnectionTimeout.toMillis());
+            //replica fora do ar nao impede a aplicacao de subir; o routing cai no primary
+            replica.setInitializationFailTimeout(-1);
+            replica.setMetricsTrackerFactory(new MicrometerMetricsTrackerFactory(meterRegistry));
+            replicas.add(replica);
+        }
+        return new ReplicaRoutingDataSource(primaryDataSource, replicas, staleness, replicaRetry);
+    }
+
+    @Bean
+    @Primary
+    public DataSource dataSource(ReplicaRoutingDataSource replicaDataSource) {
+        LazyConnectionDataSourceProxy dataSource = new LazyConnectionDataSourceProxy(replicaDataSource.writes());
+        dataSource.setReadOnlyDataSource(replicaDataSource);
+        return dataSource;
+    }
+}
@@ -0,0 +1,64 @@
+package com.ecommerce.project.config;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import org.springframework.cache.caffeine.CaffeineCache;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+//cache-aside sem put atrasado: uma leitura que deu miss antes de um commit pode terminar depois da invalidacao
+//e gravaria o resultado velho no cache, servido com o ETag novo ate o TTL. cada evict/clear avanca a geracao;
+//o put so entra se nenhuma invalidacao aconteceu desde o miss da mesma thread
+class GenerationGuardedCache extends CaffeineCache {
+
+    private final AtomicLong generation = new AtomicLong();
+    private final ThreadLocal<Long> missGeneration = new ThreadLocal<>();
+
+    GenerationGuardedCache(String name, Cache<Object, Object> cache, boolean allowNullValues) {
+        super(name, cache, allowNullValues);
+    }
+
+    @Override
+    protected Object lookup(Object key) {
+        //a geracao e lida antes do lookup: se der miss, a consulta que vem depois e no minimo desta geracao
+        long current = generation.get();
+        Object value = super.lookup(key);
+        if (value == null) {
+            missGeneration.set(current);
+        }
+        return value;
+    }
+
+    @Override
+    public void put(Object key, Object value) {
+        Long readAt = missGeneration.get();
+        missGeneration.remove();
+        if (readAt != null && readAt != generation.get()) {
+            return;
+        }
+        super.put(key, value);
+    }
+
+    @Override
+    public void evict(Object key) {
+        generation.incrementAndGet();
+        super.evict(key);
+    }
+
+    @Override
+    public boolean evictIfPresent(Object key) {
+        generation.incrementAndGet();
+        return super.evictIfPresent(key);
+    }
+
+    @Override
+    public void clear() {
+        generation.incrementAndGet();
+        super.clear();
+    }
+
+    @Override
+    public boolean invalidate() {
+        generation.incrementAndGet();
+        return super.invalidate();
+    }
+}
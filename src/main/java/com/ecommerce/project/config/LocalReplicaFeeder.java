@@ -0,0 +1,64 @@
+package com.ecommerce.project.config;
+
+import com.zaxxer.hikari.HikariDataSource;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceProperties;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.List;
+
+//modo local: uma replica H2 em memoria e um banco separado que nao recebe nada do primary sozinho.
+//copia schema e dados do primary para cada uma na subida e quando o CatalogSeeder termina; entre duas copias
+//a replica fica parada, como uma standby atrasada. URLs de standbys de verdade ficam de fora
+@Component
+@ConditionalOnProperty(name = "project.datasource.replica-urls")
+public class LocalReplicaFeeder {
+
+    private static final String IN_MEMORY = "jdbc:h2:mem:";
+
+    @Autowired
+    private HikariDataSource primaryDataSource;
+
+    @Autowired
+    private DataSourceProperties properties;
+
+    @Value("${project.datasource.replica-urls}")
+    private List<String> replicaUrls;
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void feed() throws IOException, SQLException {
+        List<String> urls = replicaUrls.stream().map(String::trim).filter(url -> url.startsWith(IN_MEMORY)).toList();
+        if (urls.isEmpty()) {
+            return;
+        }
+        Path script = Files.createTempFile("replica-", ".sql");
+        try {
+            //pelo pool do primary direto: nao passa pelo writes() e nao abre a janela de staleness
+            try (Connection connection = primaryDataSource.getConnection();
+                 Statement statement = connection.createStatement()) {
+                statement.execute("SCRIPT TO '" + script + "'");
+            }
+            for (String url : urls) {
+                try (Connection connection = DriverManager.getConnection(url, properties.determineUsername(),
+                        properties.determinePassword());
+                     Statement statement = connection.createStatement()) {
+                    statement.execute("DROP ALL OBJECTS");
+                    statement.execute("RUNSCRIPT FROM '" + script + "'");
+                }
+            }
+        } finally {
+            Files.deleteIfExists(script);
+        }
+    }
+}
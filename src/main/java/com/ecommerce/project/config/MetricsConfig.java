@@ -0,0 +1,24 @@
+package com.ecommerce.project.config;
+
+import io.micrometer.core.aop.TimedAspect;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+@Configuration
+public class MetricsConfig {
+
+    //nomes dos metricos proprios; os percentis vem de management.metrics.distribution.* no properties
+    public static final String SERVICE_TIMER = "ecommerce.service";
+    public static final String SQL_STATEMENTS = "ecommerce.sql.statements";
+    public static final String SINGLE_FLIGHT = "ecommerce.singleflight";
+    public static final String ADMISSION_REJECTED = "ecommerce.admission.rejected";
+    public static final String CONCURRENCY_LIMIT = "ecommerce.concurrency.limit";
+    public static final String CONCURRENCY_IN_FLIGHT = "ecommerce.concurrency.inflight";
+
+    //habilita o @Timed nas classes de service
+    @Bean
+    public TimedAspect timedAspect(MeterRegistry meterRegistry) {
+        return new TimedAspect(meterRegistry);
+    }
+}
@@ -0,0 +1,238 @@
+package com.ecommerce.project.config;
+
+import com.ecommerce.project.exceptions.TooManyRequestsException;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import jakarta.servlet.AsyncEvent;
+import jakarta.servlet.AsyncListener;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.core.env.Environment;
+import org.springframework.stereotype.Component;
+import org.springframework.util.AntPathMatcher;
+import org.springframework.web.filter.OncePerRequestFilter;
+import org.springframework.web.servlet.HandlerExceptionResolver;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+//admissao por grupo de rotas: rate limit por cliente (GCRA) e limite adaptativo de concorrencia por grupo.
+//um crawler no /api/public so gasta o limite do proprio grupo; escritas de admin e upload de imagem tem o seu
+@Component
+@Order(Ordered.HIGHEST_PRECEDENCE + 10)
+public class RateLimitFilter extends OncePerRequestFilter {
+
+    private static final AntPathMatcher PATHS = new AntPathMatcher();
+
+    public enum RouteGroup {
+        PUBLIC("public", 50, 100, 100),
+        ADMIN("admin", 20, 40, 20),
+        IMAGE("image", 1, 5, 4);
+
+        private final String key;
+        private final double defaultRate;
+        private final int defaultBurst;
+        private final int defaultMaxConcurrency;
+
+        RouteGroup(String key, double defaultRate, int defaultBurst, int defaultMaxConcurrency) {
+            this.key = key;
+            this.defaultRate = defaultRate;
+            this.defaultBurst = defaultBurst;
+            this.defaultMaxConcurrency = defaultMaxConcurrency;
+        }
+
+        static RouteGroup of(HttpServletRequest request) {
+            String path = request.getRequestURI().substring(request.getContextPath().length());
+            if ("PUT".equals(request.getMethod()) && PATHS.match("/api/product/*/image", path)) {
+                return IMAGE;
+            }
+            if (path.startsWith("/api/admin/")) {
+                return ADMIN;
+            }
+            if (path.startsWith("/api/public/")) {
+                return PUBLIC;
+            }
+            return null;
+        }
+    }
+
+    //intervalo entre requests (1/rate) e quanto adiantado o cliente pode ficar (burst)
+    private record Limits(long intervalNanos, long toleranceNanos, AdaptiveConcurrencyLimit concurrency) {
+    }
+
+    @Autowired
+    private Environment environment;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    //o 429 sai pelo mesmo @ExceptionHandler dos controllers (corpo APIResponse + Retry-After)
+    @Autowired
+    @Qualifier("handlerExceptionResolver")
+    private HandlerExceptionResolver exceptionResolver;
+
+    @Value("${project.ratelimit.enabled:true}")
+    private boolean enabled;
+
+    //atras de proxy/CDN confiavel o cliente vem no X-Forwarded-For; sem isso qualquer um forja o header
+    @Value("${project.ratelimit.trust-forwarded-for:false}")
+    private boolean trustForwardedFor;
+
+    @Value("${project.ratelimit.max-clients:100000}")
+    private long maxClients;
+
+    @Value("${project.ratelimit.client-idle:10m}")
+    private Duration clientIdle;
+
+    private final Map<RouteGroup, Limits> limits = new EnumMap<>(RouteGroup.class);
+
+    //"theoretical arrival time" de cada grupo+cliente; tabela limitada, clientes parados saem sozinhos
+    private Cache<String, AtomicLong> clients;
+
+    @PostConstruct
+    public void init() {
+        clients = Caffeine.newBuilder()
+                .maximumSize(maxClients)
+                .expireAfterAccess(clientIdle)
+                .build();
+        for (RouteGroup group : RouteGroup.values()) {
+            String prefix = "project.ratelimit." + group.key + ".";
+            double rate = environment.getProperty(prefix + "rate", Double.class, group.defaultRate);
+            int burst = environment.getProperty(prefix + "burst", Integer.class, group.defaultBurst);
+            int maxConcurrency = environment.getProperty(prefix + "max-concurrency", Integer.class,
+                    group.defaultMaxConcurrency);
+            long intervalNanos = (long) (TimeUnit.SECONDS.toNanos(1) / rate);
+            AdaptiveConcurrencyLimit concurrency =
+                    new AdaptiveConcurrencyLimit(Math.max(1, maxConcurrency / 2), 1, maxConcurrency);
+            limits.put(group, new Limits(intervalNanos, intervalNanos * Math.max(1, burst), concurrency));
+            Gauge.builder(MetricsConfig.CONCURRENCY_LIMIT, concurrency, AdaptiveConcurrencyLimit::getLimit)
+                    .description("Current adaptive concurrency limit of the route group")
+                    .tag("group", group.key)
+                    .register(meterRegistry);
+            Gauge.builder(MetricsConfig.CONCURRENCY_IN_FLIGHT, concurrency, AdaptiveConcurrencyLimit::getInFlight)
+                    .description("Requests of the route group being processed")
+                    .tag("group", group.key)
+                    .register(meterRegistry);
+        }
+    }
+
+    @Override
+    protected boolean shouldNotFilter(HttpServletRequest request) {
+        return !enabled || RouteGroup.of(request) == null;
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response,
+                                    FilterChain filterChain) throws ServletException, IOException {
+        RouteGroup group = RouteGroup.of(request);
+        Limits groupLimits = limits.get(group);
+
+        AtomicLong arrival = clients.get(group.key + '|' + client(request), key -> new AtomicLong(Long.MIN_VALUE));
+        long waitNanos = acquire(arrival, groupLimits.intervalNanos(), groupLimits.toleranceNanos(),
+                System.nanoTime());
+        if (waitNanos > 0) {
+            reject(request, response, group, "rate", "Rate limit exceeded for " + group.key + " requests",
+                    retryAfterSeconds(waitNanos));
+            return;
+        }
+
+        AdaptiveConcurrencyLimit concurrency = groupLimits.concurrency();
+        if (!concurrency.tryAcquire()) {
+            reject(request, response, group, "concurrency", "Too many concurrent " + group.key + " requests", 1);
+            return;
+        }
+        long start = System.nanoTime();
+        boolean async = false;
+        try {
+            filterChain.doFilter(request, response);
+            if (request.isAsyncStarted()) {
+                //export em stream: o request so termina quando o async acaba
+                async = true;
+                request.getAsyncContext().addListener(new ReleaseOnComplete(concurrency, start));
+            }
+        } finally {
+            if (!async) {
+                concurrency.release(System.nanoTime() - start);
+            }
+        }
+    }
+
+    //GCRA: equivale a um token bucket com capacidade burst, mas o estado e um unico long atualizado por CAS
+    //devolve 0 se o request entra, senao quanto falta para ele caber
+    static long acquire(AtomicLong arrival, long intervalNanos, long toleranceNanos, long now) {
+        while (true) {
+            long current = arrival.get();
+            long next = Math.max(current, now) + intervalNanos;
+            long waitNanos = next - now - toleranceNanos;
+            if (waitNanos > 0) {
+                return waitNanos;
+            }
+            if (arrival.compareAndSet(current, next)) {
+                return 0;
+            }
+        }
+    }
+
+    //Retry-After e em segundos inteiros: arredonda para cima, senao o cliente volta cedo e leva outro 429
+    static long retryAfterSeconds(long waitNanos) {
+        return Math.max(1, TimeUnit.NANOSECONDS.toSeconds(waitNanos + TimeUnit.SECONDS.toNanos(1) - 1));
+    }
+
+    private String client(HttpServletRequest request) {
+        if (trustForwardedFor) {
+            String forwardedFor = request.getHeader("X-Forwarded-For");
+            if (forwardedFor != null && !forwardedFor.isBlank()) {
+                int comma = forwardedFor.indexOf(',');
+                return (comma < 0 ? forwardedFor : forwardedFor.substring(0, comma)).trim();
+            }
+        }
+        return request.getRemoteAddr();
+    }
+
+    private void reject(HttpServletRequest request, HttpServletResponse response, RouteGroup group, String reason,
+                        String message, long retryAfterSeconds) {
+        Counter.builder(MetricsConfig.ADMISSION_REJECTED)
+                .description("Requests rejected with 429 by the rate limit or the concurrency limit")
+                .tag("group", group.key)
+                .tag("reason", reason)
+                .register(meterRegistry)
+                .increment();
+        exceptionResolver.resolveException(request, response, null,
+                new TooManyRequestsException(message, retryAfterSeconds));
+    }
+
+    private record ReleaseOnComplete(AdaptiveConcurrencyLimit concurrency, long start) implements AsyncListener {
+
+        @Override
+        public void onComplete(AsyncEvent event) {
+            concurrency.release(System.nanoTime() - start);
+        }
+
+        @Override
+        public void onTimeout(AsyncEvent event) {
+        }
+
+        @Override
+        public void onError(AsyncEvent event) {
+        }
+
+        @Override
+        public void onStartAsync(AsyncEvent event) {
+        }
+    }
+}
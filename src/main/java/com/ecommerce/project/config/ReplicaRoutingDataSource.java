@@ -0,0 +1,122 @@
+package com.ecommerce.project.config;
+
+import com.zaxxer.hikari.HikariDataSource;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.jdbc.datasource.AbstractDataSource;
+import org.springframework.jdbc.datasource.DelegatingDataSource;
+import org.springframework.web.context.request.RequestContextHolder;
+
+import javax.sql.DataSource;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.time.Duration;
+import java.util.List;
+import java.util.Objects;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+//conexoes de transacoes read-only: replicas em round-robin, replica fora do ar fica de lado por um tempo.
+//logo depois de uma escrita (staleness) e sem replica disponivel, vai para o primary.
+//a janela e global do processo (nao por cliente): qualquer escrita feita dentro de um request HTTP manda todas
+//as leituras para o primary ate staleness depois do commit. escritas em background (flush do estoque, purge
+//do log de eventos) nao abrem a janela, senao o flush de 1s deixaria as replicas sem uso enquanto o estoque muda
+public class ReplicaRoutingDataSource extends AbstractDataSource implements AutoCloseable {
+
+    private static final Logger log = LoggerFactory.getLogger(ReplicaRoutingDataSource.class);
+
+    private final DataSource primary;
+    private final List<HikariDataSource> replicas;
+    private final long stalenessNanos;
+    private final long retryNanos;
+    private final AtomicInteger next = new AtomicInteger();
+    //System.nanoTime() ate quando cada replica fica fora da rotacao
+    private final AtomicLongArray downUntil;
+    private final AtomicLong lastWrite;
+
+    public ReplicaRoutingDataSource(DataSource primary, List<HikariDataSource> replicas, Duration staleness,
+                                    Duration retry) {
+        this.primary = primary;
+        this.replicas = List.copyOf(replicas);
+        this.stalenessNanos = staleness.toNanos();
+        this.retryNanos = retry.toNanos();
+        this.downUntil = new AtomicLongArray(replicas.size());
+        this.lastWrite = new AtomicLong(System.nanoTime() - stalenessNanos);
+    }
+
+    //primary para as conexoes de escrita de um request: a janela abre quando a conexao e pega (leituras durante
+    //a escrita tambem vao para o primary) e recomeca quando ela e devolvida, ja depois do commit; uma transacao
+    //mais longa que a janela (lote, import) nao deixa a proxima leitura cair numa replica sem a escrita
+    public DataSource writes() {
+        return new DelegatingDataSource(primary) {
+            @Override
+            public Connection getConnection() throws SQLException {
+                return tracked(super.getConnection());
+            }
+
+            @Override
+            public Connection getConnection(String username, String password) throws SQLException {
+                return tracked(super.getConnection(username, password));
+            }
+        };
+    }
+
+    private Connection tracked(Connection connection) {
+        if (RequestContextHolder.getRequestAttributes() == null) {
+            return connection;
+        }
+        lastWrite.set(System.nanoTime());
+        return (Connection) Proxy.newProxyInstance(Connection.class.getClassLoader(), new Class<?>[]{Connection.class},
+                (proxy, method, args) -> {
+                    try {
+                        return method.invoke(connection, args);
+                    } catch (InvocationTargetException e) {
+                        throw e.getCause();
+                    } finally {
+                        if ("close".equals(method.getName()) || "commit".equals(method.getName())) {
+                            lastWrite.set(System.nanoTime());
+                        }
+                    }
+                });
+    }
+
+    @Override
+    public Connection getConnection() throws SQLException {
+        long now = System.nanoTime();
+        if (now - lastWrite.get() < stalenessNanos) {
+            return primary.getConnection();
+        }
+        int start = Math.floorMod(next.getAndIncrement(), replicas.size());
+        for (int i = 0; i < replicas.size(); i++) {
+            int index = (start + i) % replicas.size();
+            if (now - downUntil.get(index) < 0) {
+                continue;
+            }
+            HikariDataSource replica = replicas.get(index);
+            try {
+                return replica.getConnection();
+            } catch (SQLException e) {
+                downUntil.set(index, System.nanoTime() + retryNanos);
+                log.warn("Replica {} unavailable, using the next one: {}", replica.getPoolName(), e.getMessage());
+            }
+        }
+        return primary.getConnection();
+    }
+
+    //os pools das replicas autenticam com as credenciais do primary: com elas segue o roteamento normal,
+    //com outras so o primary sabe responder
+    @Override
+    public Connection getConnection(String username, String password) throws SQLException {
+        boolean poolCredentials = replicas.stream().allMatch(replica ->
+                Objects.equals(username, replica.getUsername()) && Objects.equals(password, replica.getPassword()));
+        return poolCredentials ? getConnection() : primary.getConnection(username, password);
+    }
+
+    @Override
+    public void close() {
+        replicas.forEach(HikariDataSource::close);
+    }
+}
@@ -0,0 +1,12 @@
+package com.ecommerce.project.config;
+
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+//chamadas concorrentes ao metodo com os mesmos argumentos dividem uma unica execucao (ver SingleFlightAspect)
+@Target(ElementType.METHOD)
+@Retention(RetentionPolicy.RUNTIME)
+public @interface SingleFlight {
+}
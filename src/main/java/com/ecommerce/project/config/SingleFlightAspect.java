@@ -0,0 +1,69 @@
+package com.ecommerce.project.config;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.aspectj.lang.ProceedingJoinPoint;
+import org.aspectj.lang.annotation.Around;
+import org.aspectj.lang.annotation.Aspect;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.stereotype.Component;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+
+//a primeira chamada (leader) executa; as que chegam com os mesmos argumentos enquanto ela roda esperam o mesmo
+//resultado ou a mesma exception. fica por fora de @Cacheable e @Transactional: quem espera nao segura conexao
+@Aspect
+@Component
+@Order(Ordered.HIGHEST_PRECEDENCE)
+public class SingleFlightAspect {
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    private final Map<List<Object>, CompletableFuture<Object>> inFlight = new ConcurrentHashMap<>();
+
+    @Around("@annotation(com.ecommerce.project.config.SingleFlight)")
+    public Object coalesce(ProceedingJoinPoint joinPoint) throws Throwable {
+        String name = joinPoint.getSignature().getDeclaringType().getSimpleName() + "." + joinPoint.getSignature().getName();
+        List<Object> key = Arrays.asList(name, Arrays.asList(joinPoint.getArgs()));
+
+        CompletableFuture<Object> call = new CompletableFuture<>();
+        CompletableFuture<Object> running = inFlight.putIfAbsent(key, call);
+        if (running != null) {
+            counter(name, "collapsed").increment();
+            try {
+                return running.join();
+            } catch (CompletionException e) {
+                throw e.getCause();
+            }
+        }
+
+        counter(name, "leader").increment();
+        try {
+            Object result = joinPoint.proceed();
+            call.complete(result);
+            return result;
+        } catch (Throwable e) {
+            call.completeExceptionally(e);
+            throw e;
+        } finally {
+            //sai do mapa ao terminar: a proxima chamada executa de novo (quem guarda resultado e o cache)
+            inFlight.remove(key, call);
+        }
+    }
+
+    private Counter counter(String method, String result) {
+        return Counter.builder(MetricsConfig.SINGLE_FLIGHT)
+                .description("Calls to @SingleFlight methods, executed (leader) or sharing an in-flight call (collapsed)")
+                .tag("method", method)
+                .tag("result", result)
+                .register(meterRegistry);
+    }
+}
@@ -0,0 +1,34 @@
+package com.ecommerce.project.config;
+
+import org.hibernate.resource.jdbc.spi.StatementInspector;
+
+//conta os SQL que o Hibernate prepara na thread do request; registrado em
+//spring.jpa.properties.hibernate.session_factory.statement_inspector
+public class SqlStatementCounter implements StatementInspector {
+
+    private static final ThreadLocal<long[]> COUNT = new ThreadLocal<>();
+
+    @Override
+    public String inspect(String sql) {
+        long[] count = COUNT.get();
+        if (count != null) {
+            count[0]++;
+        }
+        return sql;
+    }
+
+    public static void start() {
+        COUNT.set(new long[1]);
+    }
+
+    public static long current() {
+        long[] count = COUNT.get();
+        return count == null ? 0 : count[0];
+    }
+
+    public static long stop() {
+        long count = current();
+        COUNT.remove();
+        return count;
+    }
+}
@@ -0,0 +1,27 @@
+package com.ecommerce.project.controller;
+
+import com.ecommerce.project.payload.CacheStatsDTO;
+import com.ecommerce.project.service.CatalogCache;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.annotation.Lazy;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.util.List;
+
+@RestController
+@Lazy
+@RequestMapping("/api")
+public class CacheController {
+
+    @Autowired
+    private CatalogCache catalogCache;
+
+    @GetMapping("/admin/caches")
+    public ResponseEntity<List<CacheStatsDTO>> getCacheStats() {
+        return new ResponseEntity<>(catalogCache.getStats(), HttpStatus.OK);
+    }
+}
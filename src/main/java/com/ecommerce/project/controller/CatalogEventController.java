@@ -0,0 +1,37 @@
+package com.ecommerce.project.controller;
+
+import com.ecommerce.project.exceptions.APIException;
+import com.ecommerce.project.payload.CatalogEventResponse;
+import com.ecommerce.project.service.CatalogEventService;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Lazy;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+
+@RestController
+@Lazy
+@RequestMapping("/api")
+public class CatalogEventController {
+
+    @Autowired
+    private CatalogEventService catalogEventService;
+
+    @Value("${project.events.max-limit:1000}")
+    private int maxLimit;
+
+    //consumidor fora do processo: le a partir de "after" e continua com o nextAfter da resposta
+    @GetMapping("/admin/catalog/events")
+    public ResponseEntity<CatalogEventResponse> getEvents(
+            @RequestParam(name = "after", defaultValue = "0", required = false) Long after,
+            @RequestParam(name = "limit", defaultValue = "500", required = false) Integer limit) {
+        if (limit > maxLimit) {
+            throw new APIException("limit must be at most " + maxLimit);
+        }
+        return new ResponseEntity<>(catalogEventService.readAfter(after, limit), HttpStatus.OK);
+    }
+}
@@ -0,0 +1,42 @@
+package com.ecommerce.project.controller;
+
+import com.ecommerce.project.payload.InventoryDTO;
+import com.ecommerce.project.payload.ReservationDTO;
+import com.ecommerce.project.service.InventoryService;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+@RestController
+@RequestMapping("/api")
+public class InventoryController {
+
+    @Autowired
+    private InventoryService inventoryService;
+
+    @GetMapping("/public/products/{productId}/inventory")
+    public ResponseEntity<InventoryDTO> getStock(@PathVariable Long productId) {
+        InventoryDTO inventoryDTO = inventoryService.getStock(productId);
+        return new ResponseEntity<>(inventoryDTO, HttpStatus.OK);
+    }
+
+    @PostMapping("/products/{productId}/reservations")
+    public ResponseEntity<ReservationDTO> reserve(@PathVariable Long productId,
+                                                  @RequestParam(name = "quantity", defaultValue = "1", required = false) Integer quantity) {
+        ReservationDTO reservationDTO = inventoryService.reserve(productId, quantity);
+        return new ResponseEntity<>(reservationDTO, HttpStatus.CREATED);
+    }
+
+    @PostMapping("/reservations/{reservationId}/commit")
+    public ResponseEntity<ReservationDTO> commit(@PathVariable String reservationId) {
+        ReservationDTO reservationDTO = inventoryService.commit(reservationId);
+        return new ResponseEntity<>(reservationDTO, HttpStatus.OK);
+    }
+
+    @DeleteMapping("/reservations/{reservationId}")
+    public ResponseEntity<ReservationDTO> release(@PathVariable String reservationId) {
+        ReservationDTO reservationDTO = inventoryService.release(reservationId);
+        return new ResponseEntity<>(reservationDTO, HttpStatus.OK);
+    }
+}
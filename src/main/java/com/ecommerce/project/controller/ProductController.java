@@ -1,20 +1,43 @@
 package com.ecommerce.project.controller;
 
-
+import com.ecommerce.project.config.AppConstants;
+import com.ecommerce.project.payload.ImageProcessingStatus;
+import com.ecommerce.project.payload.ProductBatchRequest;
+import com.ecommerce.project.payload.ProductBatchResponse;
+import com.ecommerce.project.payload.ProductBrowseResponse;
 import com.ecommerce.project.payload.ProductDTO;
+import com.ecommerce.project.payload.ProductFilter;
+import com.ecommerce.project.payload.ProductImportResponse;
 import com.ecommerce.project.payload.ProductResponse;
 import com.ecommerce.project.repositories.CategoryRepository;
+import com.ecommerce.project.service.CatalogVersions;
+import com.ecommerce.project.service.CategorySnapshots;
+import com.ecommerce.project.service.ImageProcessingService;
+import com.ecommerce.project.service.ProductBatchService;
+import com.ecommerce.project.service.ProductExportService;
+import com.ecommerce.project.service.ProductImportService;
 import com.ecommerce.project.service.ProductService;
+import jakarta.servlet.http.HttpServletResponse;
 import jakarta.validation.Valid;
 import org.modelmapper.ModelMapper;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.annotation.Lazy;
 import org.springframework.data.repository.query.Param;
+import org.springframework.http.CacheControl;
+import org.springframework.http.ContentDisposition;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
 import org.springframework.web.multipart.MultipartFile;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
+import java.io.ByteArrayInputStream;
 import java.io.IOException;
+import java.io.InputStream;
+import java.util.zip.GZIPInputStream;
 
 @RestController
 @RequestMapping("/api")
@@ -24,8 +47,26 @@ public class ProductController {
     private ProductService productService;
     @Autowired
     private CategoryRepository categoryRepository;
+    //os servicos so de admin entram como proxy @Lazy: sao criados no primeiro uso, nao no startup
     @Autowired
+    @Lazy
     private ModelMapper modelMapper;
+    @Autowired
+    @Lazy
+    private ProductImportService productImportService;
+    @Autowired
+    @Lazy
+    private ProductExportService productExportService;
+    @Autowired
+    @Lazy
+    private ImageProcessingService imageProcessingService;
+    @Autowired
+    private CatalogVersions catalogVersions;
+    @Autowired
+    private CategorySnapshots categorySnapshots;
+    @Autowired
+    @Lazy
+    private ProductBatchService productBatchService;
 
 
     @PostMapping("/admin/categories/{categoryId}/product")
@@ -37,21 +78,92 @@ public class ProductController {
         return new ResponseEntity<>(productDTOSaved, HttpStatus.CREATED);
     }
 
+    @PostMapping(value = "/admin/categories/{categoryId}/products/import",
+            consumes = {"text/csv", "application/x-ndjson"})
+    public ResponseEntity<ProductImportResponse> importProducts(@PathVariable Long categoryId,
+            @RequestHeader(HttpHeaders.CONTENT_TYPE) String contentType,
+            @RequestParam(name = "batchSize", defaultValue = AppConstants.IMPORT_BATCH_SIZE, required = false) Integer batchSize,
+            InputStream body) throws IOException {
+        String format = contentType.startsWith("text/csv")
+                ? ProductImportService.FORMAT_CSV
+                : ProductImportService.FORMAT_NDJSON;
+        ProductImportResponse importResponse = productImportService.importProducts(categoryId, body, format, batchSize);
+        return new ResponseEntity<>(importResponse, HttpStatus.OK);
+    }
+
+    @GetMapping("/admin/products/export")
+    public ResponseEntity<StreamingResponseBody> exportProducts(
+            @RequestParam(name = "format", defaultValue = ProductExportService.FORMAT_NDJSON, required = false) String format,
+            @RequestParam(name = "categoryId", required = false) Long categoryId,
+            @RequestParam(name = "gzip", defaultValue = "false", required = false) boolean gzip) {
+        StreamingResponseBody body = productExportService.exportProducts(format, categoryId, gzip);
+
+        HttpHeaders headers = new HttpHeaders();
+        headers.setContentType(ProductExportService.FORMAT_CSV.equals(format)
+                ? MediaType.parseMediaType("text/csv")
+                : MediaType.parseMediaType("application/x-ndjson"));
+        headers.setContentDisposition(ContentDisposition.attachment().filename("products." + format).build());
+        if (gzip) {
+            headers.set(HttpHeaders.CONTENT_ENCODING, "gzip");
+        }
+        return new ResponseEntity<>(body, headers, HttpStatus.OK);
+    }
+
     @GetMapping("/public/products")
-    public ResponseEntity<ProductResponse> getallProducts() {
-        ProductResponse productResponse = productService.getAllProducts();
-        return new ResponseEntity<>(productResponse, HttpStatus.OK);
+    public ResponseEntity<ProductResponse> getallProducts(
+            @RequestParam(name = "pageNumber", defaultValue = AppConstants.PAGE_NUMBER, required = false) Integer pageNumber,
+            @RequestParam(name = "pageSize", defaultValue = AppConstants.PAGE_SIZE, required = false) Integer pageSize,
+            @RequestParam(name = "sortBy", defaultValue = AppConstants.SORT_PRODUCTS_BY, required = false) String sortBy,
+            @RequestParam(name = "sortOrder", defaultValue = AppConstants.SORT_DIR, required = false) String sortOrder,
+            @RequestParam(name = "after", required = false) String after,
+            WebRequest webRequest) {
+        //a versao e lida antes da consulta: se mudar no meio, o cliente so busca de novo na proxima vez
+        CatalogVersions.Version version = catalogVersions.products();
+        if (webRequest.checkNotModified(version.eTag(), version.lastModified().toEpochMilli())) {
+            return null;
+        }
+        ProductResponse productResponse = productService.getAllProducts(pageNumber, pageSize, sortBy, sortOrder, after);
+        return ResponseEntity.ok().cacheControl(CacheControl.noCache().cachePublic()).body(productResponse);
+    }
+
+    @GetMapping("/public/products/browse")
+    public ResponseEntity<ProductBrowseResponse> browseProducts(
+            @ModelAttribute ProductFilter filter,
+            @RequestParam(name = "pageNumber", defaultValue = AppConstants.PAGE_NUMBER, required = false) Integer pageNumber,
+            @RequestParam(name = "pageSize", defaultValue = AppConstants.PAGE_SIZE, required = false) Integer pageSize,
+            @RequestParam(name = "sortBy", defaultValue = AppConstants.SORT_PRODUCTS_BY, required = false) String sortBy,
+            @RequestParam(name = "sortOrder", defaultValue = AppConstants.SORT_DIR, required = false) String sortOrder,
+            @RequestParam(name = "priceBucketSize", defaultValue = AppConstants.PRICE_BUCKET_SIZE, required = false) Double priceBucketSize,
+            WebRequest webRequest) {
+        CatalogVersions.Version version = catalogVersions.products();
+        if (webRequest.checkNotModified(version.eTag(), version.lastModified().toEpochMilli())) {
+            return null;
+        }
+        ProductBrowseResponse browseResponse = productService.browseProducts(filter, pageNumber, pageSize,
+                sortBy, sortOrder, priceBucketSize);
+        return ResponseEntity.ok().cacheControl(CacheControl.noCache().cachePublic()).body(browseResponse);
     }
 
     @GetMapping("/public/categories/{categoryId}/products")
-    public ResponseEntity<ProductResponse> getProductByCategory(@PathVariable Long categoryId) {
+    public ResponseEntity<ProductResponse> getProductByCategory(@PathVariable Long categoryId, WebRequest webRequest,
+                                                                HttpServletResponse response) throws IOException {
+        CatalogVersions.Version version = catalogVersions.categoryProducts(categoryId);
+        if (webRequest.checkNotModified(version.eTag(), version.lastModified().toEpochMilli())) {
+            return null;
+        }
+        if (categorySnapshots.isEnabled()) {
+            writeSnapshot(categorySnapshots.get(categoryId), webRequest, response);
+            return null;
+        }
         ProductResponse productResponse = productService.seachByCategory(categoryId);
-        return new ResponseEntity<>(productResponse, HttpStatus.OK);
+        return ResponseEntity.ok().cacheControl(CacheControl.noCache().cachePublic()).body(productResponse);
     }
 
     @GetMapping("/public/categories/keyword/{keyword}")
-    public ResponseEntity<ProductResponse> getProductByKeyword(@PathVariable String keyword) {
-        ProductResponse productResponse = productService.searchProductByKeyword(keyword);
+    public ResponseEntity<ProductResponse> getProductByKeyword(@PathVariable String keyword,
+            @RequestParam(name = "pageNumber", defaultValue = AppConstants.PAGE_NUMBER, required = false) Integer pageNumber,
+            @RequestParam(name = "pageSize", defaultValue = AppConstants.PAGE_SIZE, required = false) Integer pageSize) {
+        ProductResponse productResponse = productService.searchProductByKeyword(keyword, pageNumber, pageSize);
         return new ResponseEntity<>(productResponse, HttpStatus.FOUND);
     }
 
@@ -63,6 +175,18 @@ public class ProductController {
 
     }
 
+    @PutMapping("/admin/products/batch")
+    public ResponseEntity<ProductBatchResponse> updateProducts(@RequestBody ProductBatchRequest batchRequest) {
+        ProductBatchResponse batchResponse = productBatchService.updateProducts(batchRequest);
+        return new ResponseEntity<>(batchResponse, HttpStatus.OK);
+    }
+
+    @PostMapping("/admin/products/batch/delete")
+    public ResponseEntity<ProductBatchResponse> deleteProducts(@RequestBody ProductBatchRequest batchRequest) {
+        ProductBatchResponse batchResponse = productBatchService.deleteProducts(batchRequest);
+        return new ResponseEntity<>(batchResponse, HttpStatus.OK);
+    }
+
     @DeleteMapping("/admin/products/{productId}")
     public ResponseEntity<ProductDTO> deleteProduct(@PathVariable Long productId) {
         ProductDTO deletedProduct = productService.deleteProduct(productId);
@@ -70,10 +194,35 @@ public class ProductController {
     }
 
     @PutMapping("/product/{productId}/image")
-    public ResponseEntity<ProductDTO> updateProductImage(@Valid @PathVariable Long productId,
-                                                         @RequestParam("image") MultipartFile image) throws IOException {
-        ProductDTO updatedProduct = productService.updateProductImage(productId, image);
-        return new ResponseEntity<>(updatedProduct, HttpStatus.OK);
+    public ResponseEntity<ImageProcessingStatus> updateProductImage(@Valid @PathVariable Long productId,
+                                                                    @RequestParam("image") MultipartFile image) throws IOException {
+        ImageProcessingStatus status = imageProcessingService.submit(productId, image);
+        return new ResponseEntity<>(status, HttpStatus.ACCEPTED);
+    }
+
+    @GetMapping("/product/{productId}/image/status")
+    public ResponseEntity<ImageProcessingStatus> getProductImageStatus(@PathVariable Long productId) {
+        ImageProcessingStatus status = imageProcessingService.getStatus(productId);
+        return new ResponseEntity<>(status, HttpStatus.OK);
+    }
+
+    //bytes prontos do snapshot; quem nao aceita gzip recebe o mesmo snapshot descomprimido em stream
+    private static void writeSnapshot(CategorySnapshots.Snapshot snapshot, WebRequest webRequest,
+                                      HttpServletResponse response) throws IOException {
+        response.setContentType(MediaType.APPLICATION_JSON_VALUE);
+        response.setHeader(HttpHeaders.CACHE_CONTROL, CacheControl.noCache().cachePublic().getHeaderValue());
+        response.setHeader(HttpHeaders.VARY, HttpHeaders.ACCEPT_ENCODING);
+        String acceptEncoding = webRequest.getHeader(HttpHeaders.ACCEPT_ENCODING);
+        if (acceptEncoding != null && acceptEncoding.contains("gzip") && !acceptEncoding.contains("gzip;q=0")) {
+            response.setHeader(HttpHeaders.CONTENT_ENCODING, "gzip");
+            response.setContentLength(snapshot.gzip().length);
+            response.getOutputStream().write(snapshot.gzip());
+        } else {
+            response.setContentLength(snapshot.jsonLength());
+            try (InputStream json = new GZIPInputStream(new ByteArrayInputStream(snapshot.gzip()))) {
+                json.transferTo(response.getOutputStream());
+            }
+        }
     }
 
 }
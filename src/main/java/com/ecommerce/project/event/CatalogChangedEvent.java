@@ -0,0 +1,18 @@
+package com.ecommerce.project.event;
+
+//publicado pelos services a cada escrita no catalogo; categoryId e a categoria afetada (null = todas)
+public record CatalogChangedEvent(Type type, Long categoryId) {
+
+    public enum Type {
+        CATEGORY,
+        PRODUCTS
+    }
+
+    public static CatalogChangedEvent category(Long categoryId) {
+        return new CatalogChangedEvent(Type.CATEGORY, categoryId);
+    }
+
+    public static CatalogChangedEvent products(Long categoryId) {
+        return new CatalogChangedEvent(Type.PRODUCTS, categoryId);
+    }
+}
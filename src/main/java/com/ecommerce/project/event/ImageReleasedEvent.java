@@ -0,0 +1,5 @@
+package com.ecommerce.project.event;
+
+//um produto deixou de usar esta imagem (foi apagado ou trocou de imagem)
+public record ImageReleasedEvent(String image, String imageVariants) {
+}
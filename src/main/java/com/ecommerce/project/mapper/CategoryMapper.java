@@ -0,0 +1,44 @@
+package com.ecommerce.project.mapper;
+
+import com.ecommerce.project.model.Category;
+import com.ecommerce.project.payload.CategoryDTO;
+import org.modelmapper.ModelMapper;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Lazy;
+import org.springframework.stereotype.Component;
+
+@Component
+public class CategoryMapper {
+
+    //so usado com verify=true
+    @Autowired
+    @Lazy
+    private ModelMapper modelMapper;
+
+    @Value("${project.mapper.verify:false}")
+    private boolean verify;
+
+    public CategoryDTO toDTO(Category category) {
+        CategoryDTO categoryDTO = fieldsOf(category);
+        if (verify) {
+            MapperVerifier.check(categoryDTO, modelMapper.map(category, CategoryDTO.class));
+        }
+        return categoryDTO;
+    }
+
+    public Category toEntity(CategoryDTO categoryDTO) {
+        Category category = new Category();
+        category.setCategoryId(categoryDTO.getCategoryId());
+        category.setCategoryName(categoryDTO.getCategoryName());
+        if (verify) {
+            //compara campo a campo pelo DTO: o equals da entidade e so pelo id (null em categoria nova)
+            MapperVerifier.check(fieldsOf(category), fieldsOf(modelMapper.map(categoryDTO, Category.class)));
+        }
+        return category;
+    }
+
+    private static CategoryDTO fieldsOf(Category category) {
+        return new CategoryDTO(category.getCategoryId(), category.getCategoryName());
+    }
+}
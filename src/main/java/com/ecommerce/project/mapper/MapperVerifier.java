@@ -0,0 +1,15 @@
+package com.ecommerce.project.mapper;
+
+import java.util.Objects;
+
+final class MapperVerifier {
+
+    private MapperVerifier() {
+    }
+
+    static void check(Object mapped, Object expected) {
+        if (!Objects.equals(mapped, expected)) {
+            throw new IllegalStateException("Mapper output " + mapped + " differs from ModelMapper output " + expected);
+        }
+    }
+}
@@ -0,0 +1,61 @@
+package com.ecommerce.project.mapper;
+
+import com.ecommerce.project.model.Product;
+import com.ecommerce.project.payload.ProductDTO;
+import org.modelmapper.ModelMapper;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Lazy;
+import org.springframework.stereotype.Component;
+
+//mapeamento campo a campo, sem reflexao; com project.mapper.verify=true compara com o ModelMapper
+@Component
+public class ProductMapper {
+
+    //so usado com verify=true
+    @Autowired
+    @Lazy
+    private ModelMapper modelMapper;
+
+    @Value("${project.mapper.verify:false}")
+    private boolean verify;
+
+    public ProductDTO toDTO(Product product) {
+        ProductDTO productDTO = fieldsOf(product);
+        if (verify) {
+            MapperVerifier.check(productDTO, modelMapper.map(product, ProductDTO.class));
+        }
+        return productDTO;
+    }
+
+    public Product toEntity(ProductDTO productDTO) {
+        Product product = new Product();
+        product.setProductId(productDTO.getProductId());
+        product.setProductName(productDTO.getProductName());
+        product.setImage(productDTO.getImage());
+        product.setImageVariants(productDTO.getImageVariants());
+        product.setDescription(productDTO.getDescription());
+        product.setQuantity(productDTO.getQuantity());
+        product.setPrice(productDTO.getPrice());
+        product.setDiscount(productDTO.getDiscount());
+        product.setSpecialPrice(productDTO.getSpecialPrice());
+        if (verify) {
+            //compara campo a campo pelo DTO: o equals da entidade e so pelo id (null em produto novo)
+            MapperVerifier.check(fieldsOf(product), fieldsOf(modelMapper.map(productDTO, Product.class)));
+        }
+        return product;
+    }
+
+    private static ProductDTO fieldsOf(Product product) {
+        return new ProductDTO(
+                product.getProductId(),
+                product.getProductName(),
+                product.getImage(),
+                product.getImageVariants(),
+                product.getDescription(),
+                product.getQuantity(),
+                product.getPrice(),
+                product.getDiscount(),
+                product.getSpecialPrice());
+    }
+}
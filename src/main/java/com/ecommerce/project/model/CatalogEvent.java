@@ -0,0 +1,55 @@
+package com.ecommerce.project.model;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.EnumType;
+import jakarta.persistence.Enumerated;
+import jakarta.persistence.GeneratedValue;
+import jakarta.persistence.GenerationType;
+import jakarta.persistence.Id;
+import jakarta.persistence.Index;
+import jakarta.persistence.SequenceGenerator;
+import jakarta.persistence.Table;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+import org.hibernate.annotations.JdbcTypeCode;
+import org.hibernate.type.SqlTypes;
+
+import java.time.Instant;
+
+//linha do log de mudancas do catalogo (outbox): gravada na mesma transacao da escrita que descreve
+@Entity
+@Table(name = "catalog_event", indexes = @Index(name = "idx_catalog_event_created_at", columnList = "createdAt"))
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+public class CatalogEvent {
+
+    //sequence do banco, um valor por vez: com pool cada instancia teria sua faixa e a ordem entre instancias
+    //deixaria de ser a ordem de insert. a ordem de commit pode ser outra; o leitor espera os buracos (ver o service)
+    @Id
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "catalog_event_seq")
+    @SequenceGenerator(name = "catalog_event_seq", sequenceName = "catalog_event_seq", allocationSize = 1)
+    private Long sequence;
+
+    //varchar e nao o enum nativo do H2: adicionar um tipo nao exige alterar a coluna
+    @Enumerated(EnumType.STRING)
+    @JdbcTypeCode(SqlTypes.VARCHAR)
+    @Column(nullable = false, length = 32)
+    private CatalogEventType type;
+
+    @Column(nullable = false)
+    private Long entityId;
+
+    private Long categoryId;
+
+    //JSON com os valores novos; null em deletes
+    @Column(length = 4000)
+    private String payload;
+
+    @Column(nullable = false)
+    private Instant createdAt;
+}
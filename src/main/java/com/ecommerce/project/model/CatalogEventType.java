@@ -0,0 +1,11 @@
+package com.ecommerce.project.model;
+
+public enum CatalogEventType {
+    PRODUCT_CREATED,
+    PRODUCT_UPDATED,
+    PRODUCT_IMAGE_UPDATED,
+    PRODUCT_DELETED,
+    CATEGORY_CREATED,
+    CATEGORY_UPDATED,
+    CATEGORY_DELETED
+}
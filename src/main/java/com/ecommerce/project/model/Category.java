@@ -2,24 +2,54 @@ package com.ecommerce.project.model;
 
 import jakarta.persistence.*;
 import lombok.AllArgsConstructor;
-import lombok.Data;
+import lombok.Getter;
 import lombok.NoArgsConstructor;
+import lombok.Setter;
+import lombok.ToString;
+import org.hibernate.Hibernate;
+import org.hibernate.annotations.UpdateTimestamp;
 
+import java.time.Instant;
 import java.util.List;
 
 @Entity(name = "categories")
-@Data
+@Table(indexes = @Index(name = "idx_category_name", columnList = "categoryName"))
+@Getter
+@Setter
+@ToString(exclude = "products")
 @NoArgsConstructor
 @AllArgsConstructor
 
 public class Category {
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "category_seq")
+    @SequenceGenerator(name = "category_seq", sequenceName = "category_seq", allocationSize = 50)
     private Long categoryId;
 
     private String categoryName;
 
+    //preenchido pelo Hibernate em todo insert/update da linha
+    @UpdateTimestamp
+    private Instant lastModified;
+
+    //lazy (padrao do OneToMany); so o delete precisa dos produtos e carrega com entity graph
     @OneToMany(mappedBy = "category", cascade = CascadeType.ALL)
     private List<Product> products;
 
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) {
+            return true;
+        }
+        if (o == null || Hibernate.getClass(this) != Hibernate.getClass(o)) {
+            return false;
+        }
+        Category other = (Category) o;
+        return categoryId != null && categoryId.equals(other.getCategoryId());
+    }
+
+    @Override
+    public int hashCode() {
+        return Hibernate.getClass(this).hashCode();
+    }
 }
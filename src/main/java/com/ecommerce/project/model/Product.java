@@ -4,22 +4,47 @@ import jakarta.persistence.*;
 import jakarta.validation.constraints.NotBlank;
 import jakarta.validation.constraints.Size;
 import lombok.AllArgsConstructor;
-import lombok.Data;
+import lombok.Getter;
 import lombok.NoArgsConstructor;
+import lombok.Setter;
+import lombok.ToString;
+import org.hibernate.Hibernate;
+import org.hibernate.annotations.DynamicUpdate;
+import org.hibernate.annotations.UpdateTimestamp;
+
+import java.time.Instant;
 
 @Entity
-@Data
+@Table(uniqueConstraints = @UniqueConstraint(name = "uk_product_category_name",
+        columnNames = {"productName", "category_id"}),
+        indexes = {
+                //produtos da categoria ja na ordem de preco (findByCategoryOrderByPriceAsc, filtro do browse)
+                @Index(name = "idx_product_category_price", columnList = "category_id, price"),
+                @Index(name = "idx_product_image", columnList = "image"),
+                @Index(name = "idx_product_price", columnList = "price")
+        })
+//sem @Data: equals/hashCode/toString gerados navegariam a associacao com Category e carregariam o grafo
+@Getter
+@Setter
+@ToString(exclude = "category")
 @NoArgsConstructor
 @AllArgsConstructor
+//UPDATE so com as colunas alteradas: salvar o produto (ex. imagem) nao regrava o quantity lido antes de um
+//flush do estoque write-behind; quantity so muda pelo InventoryServiceImpl ou por um replaceStock explicito
+@DynamicUpdate
 public class Product {
 
+    //sequence com pooled optimizer (allocationSize) para o Hibernate conseguir fazer batch de inserts
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "product_seq")
+    @SequenceGenerator(name = "product_seq", sequenceName = "product_seq", allocationSize = 50)
     private Long productId;
     @NotBlank
     @Size(min = 3, message = "must have at leat 3 characteres")
     private String productName;
     private String image;
+    //nomes das versoes redimensionadas da imagem, separados por virgula
+    private String imageVariants;
 
     @NotBlank
     @Size(min = 6, message = "must have at leat 6 characteres")
@@ -29,7 +54,30 @@ public class Product {
     private double discount;
     private double specialPrice;
 
-    @ManyToOne
+    //preenchido pelo Hibernate em todo insert/update da linha
+    @UpdateTimestamp
+    private Instant lastModified;
+
+    //LAZY: listagens de produto nao precisam da categoria; quem precisa pede por entity graph
+    @ManyToOne(fetch = FetchType.LAZY)
     @JoinColumn(name = "category_id")
     private Category category;
+
+    //identidade pelo id, estavel entre proxy e entidade carregada; hashCode constante por causa do id gerado no persist
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) {
+            return true;
+        }
+        if (o == null || Hibernate.getClass(this) != Hibernate.getClass(o)) {
+            return false;
+        }
+        Product other = (Product) o;
+        return productId != null && productId.equals(other.getProductId());
+    }
+
+    @Override
+    public int hashCode() {
+        return Hibernate.getClass(this).hashCode();
+    }
 }
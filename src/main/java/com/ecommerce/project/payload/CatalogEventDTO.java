@@ -0,0 +1,23 @@
+package com.ecommerce.project.payload;
+
+import com.ecommerce.project.model.CatalogEventType;
+import com.fasterxml.jackson.annotation.JsonRawValue;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.Instant;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class CatalogEventDTO {
+    private long sequence;
+    private CatalogEventType type;
+    private Long entityId;
+    private Long categoryId;
+    //ja e JSON; vai na resposta como objeto e nao como string
+    @JsonRawValue
+    private String payload;
+    private Instant createdAt;
+}
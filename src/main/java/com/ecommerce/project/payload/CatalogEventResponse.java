@@ -0,0 +1,19 @@
+package com.ecommerce.project.payload;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class CatalogEventResponse {
+    private List<CatalogEventDTO> events;
+    //proximo "after" para continuar lendo
+    private long nextAfter;
+    private long lastSequence;
+    //menor sequence ainda guardada; quem leu ate antes dela perdeu eventos e precisa reconstruir
+    private long firstAvailableSequence;
+}
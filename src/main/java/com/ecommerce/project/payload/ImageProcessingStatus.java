@@ -0,0 +1,28 @@
+package com.ecommerce.project.payload;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.Instant;
+import java.util.List;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class ImageProcessingStatus {
+
+    public enum State {
+        QUEUED,
+        PROCESSING,
+        DONE,
+        FAILED
+    }
+
+    private Long productId;
+    private State state;
+    private String image;
+    private List<String> imageVariants;
+    private String message;
+    private Instant updatedAt;
+}
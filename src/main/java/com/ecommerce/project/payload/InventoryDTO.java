@@ -0,0 +1,16 @@
+package com.ecommerce.project.payload;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class InventoryDTO {
+    private Long productId;
+    //estoque fisico: ja descontadas as reservas confirmadas, mesmo as que ainda nao foram gravadas no banco
+    private Long onHand;
+    private Long reserved;
+    private Long available;
+}
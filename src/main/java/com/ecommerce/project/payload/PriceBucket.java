@@ -0,0 +1,15 @@
+package com.ecommerce.project.payload;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+//faixa [from, to) do histograma de precos
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class PriceBucket {
+    private Double from;
+    private Double to;
+    private Long count;
+}
@@ -0,0 +1,19 @@
+package com.ecommerce.project.payload;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+//alvo do lote: productIds ou categoryId (um dos dois); campos nulos nao sao alterados
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class ProductBatchRequest {
+    private List<Long> productIds;
+    private Long categoryId;
+    private Double price;
+    private Double discount;
+    private Integer quantity;
+}
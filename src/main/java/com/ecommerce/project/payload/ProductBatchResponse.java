@@ -0,0 +1,18 @@
+package com.ecommerce.project.payload;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class ProductBatchResponse {
+    private long matchedProducts;
+    private long affectedProducts;
+    //ids pedidos que nao existem; sempre vazio quando o alvo e uma categoria
+    private List<Long> notFoundIds;
+    private long elapsedMillis;
+}
@@ -0,0 +1,19 @@
+package com.ecommerce.project.payload;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+//filtros opcionais do browse; campo nulo = sem filtro
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class ProductFilter {
+    private Long categoryId;
+    private Double minPrice;
+    private Double maxPrice;
+    private Double minDiscount;
+    private Double minSpecialPrice;
+    private Double maxSpecialPrice;
+    private Boolean inStock;
+}
@@ -0,0 +1,21 @@
+package com.ecommerce.project.payload;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class ProductImportResponse {
+    private long totalRows;
+    private long importedRows;
+    private long failedRows;
+    private List<ImportRowError> errors;
+    //true quando existem mais erros do que os listados em errors
+    private boolean errorsTruncated;
+    private long elapsedMillis;
+    private double rowsPerSecond;
+}
@@ -11,4 +11,11 @@ import java.util.List;
 @AllArgsConstructor
 public class ProductResponse {
     private List<ProductDTO> content;
+    private Integer pageNumber;
+    private Integer pageSize;
+    private Integer totalElements;
+    private Integer totalPages;
+    private boolean lastPage;
+    //token opaco para pedir a proxima pagina em modo keyset (parametro "after")
+    private String nextCursor;
 }
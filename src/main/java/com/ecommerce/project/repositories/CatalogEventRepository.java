@@ -0,0 +1,32 @@
+package com.ecommerce.project.repositories;
+
+import com.ecommerce.project.model.CatalogEvent;
+import org.springframework.data.domain.Limit;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.Instant;
+import java.util.List;
+import java.util.Optional;
+
+@Repository
+public interface CatalogEventRepository extends JpaRepository<CatalogEvent, Long> {
+
+    List<CatalogEvent> findBySequenceGreaterThanOrderBySequenceAsc(Long sequence, Limit limit);
+
+    Optional<CatalogEvent> findFirstByOrderBySequenceAsc();
+
+    Optional<CatalogEvent> findFirstByOrderBySequenceDesc();
+
+    Optional<CatalogEvent> findFirstByCreatedAtLessThanEqualOrderBySequenceDesc(Instant createdAt);
+
+    //retencao: so o que e velho E ja foi lido por todos os subscribers
+    @Transactional
+    @Modifying
+    @Query("DELETE FROM CatalogEvent e WHERE e.createdAt < :before AND e.sequence <= :upTo")
+    int deleteOlderThan(@Param("before") Instant before, @Param("upTo") long upTo);
+}
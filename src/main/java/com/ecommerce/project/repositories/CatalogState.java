@@ -0,0 +1,10 @@
+package com.ecommerce.project.repositories;
+
+import java.time.Instant;
+
+//estado de uma listagem: insert/update mexem em lastModified e delete na contagem, entao toda escrita muda o par
+public interface CatalogState {
+    long getCount();
+
+    Instant getLastModified();
+}
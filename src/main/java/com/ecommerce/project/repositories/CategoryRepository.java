@@ -3,12 +3,23 @@ package com.ecommerce.project.repositories;
 import com.ecommerce.project.model.Category;
 import jakarta.validation.constraints.NotBlank;
 import jakarta.validation.constraints.Size;
+import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
 import org.springframework.stereotype.Repository;
 
+import java.util.Optional;
+
 @Repository
 
 public interface CategoryRepository extends JpaRepository<Category, Long> {
 
     Category findByCategoryName(String categoryName);
+
+    //o delete em cascata precisa dos produtos: vem tudo em um join em vez de um select a mais
+    @EntityGraph(attributePaths = "products")
+    Optional<Category> findWithProductsByCategoryId(Long categoryId);
+
+    @Query("SELECT count(c) AS count, max(c.lastModified) AS lastModified FROM categories c")
+    CatalogState findCatalogState();
 }
@@ -0,0 +1,16 @@
+package com.ecommerce.project.repositories;
+
+import com.ecommerce.project.model.Product;
+import com.ecommerce.project.payload.CategoryFacet;
+import com.ecommerce.project.payload.PriceBucket;
+import org.springframework.data.jpa.domain.Specification;
+
+import java.util.List;
+
+//agregacoes do browse, cada uma em um unico GROUP BY no banco
+public interface ProductFacetRepository {
+    //bucketSize e alargado (multiplo inteiro) se a faixa de precos do filtro passar de maxBuckets faixas
+    List<PriceBucket> priceHistogram(Specification<Product> specification, double bucketSize, int maxBuckets);
+
+    List<CategoryFacet> countByCategory(Specification<Product> specification);
+}
@@ -0,0 +1,86 @@
+package com.ecommerce.project.repositories;
+
+import com.ecommerce.project.model.Category;
+import com.ecommerce.project.model.Product;
+import com.ecommerce.project.payload.CategoryFacet;
+import com.ecommerce.project.payload.PriceBucket;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import jakarta.persistence.Tuple;
+import jakarta.persistence.criteria.CriteriaBuilder;
+import jakarta.persistence.criteria.CriteriaQuery;
+import jakarta.persistence.criteria.Expression;
+import jakarta.persistence.criteria.Join;
+import jakarta.persistence.criteria.Root;
+import org.springframework.data.jpa.domain.Specification;
+
+import java.util.List;
+
+public class ProductFacetRepositoryImpl implements ProductFacetRepository {
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    @Override
+    public List<PriceBucket> priceHistogram(Specification<Product> specification, double requestedBucketSize,
+                                            int maxBuckets) {
+        CriteriaBuilder cb = entityManager.getCriteriaBuilder();
+
+        //menor e maior preco do filtro: sem eles uma faixa minuscula devolveria uma faixa por preco distinto
+        CriteriaQuery<Tuple> rangeQuery = cb.createTupleQuery();
+        Root<Product> rangeRoot = rangeQuery.from(Product.class);
+        rangeQuery.multiselect(cb.min(rangeRoot.<Double>get("price")), cb.max(rangeRoot.<Double>get("price")))
+                .where(specification.toPredicate(rangeRoot, rangeQuery, cb));
+        Tuple range = entityManager.createQuery(rangeQuery).getSingleResult();
+        if (range.get(0) == null) {
+            return List.of();
+        }
+        double bucketSize = bucketSize(requestedBucketSize, range.get(0, Double.class), range.get(1, Double.class),
+                maxBuckets);
+
+        CriteriaQuery<Tuple> query = cb.createTupleQuery();
+        Root<Product> root = query.from(Product.class);
+
+        //floor(price / bucketSize) = indice da faixa
+        Expression<Double> bucket = cb.floor(cb.quot(root.<Double>get("price"), cb.literal(bucketSize)).as(Double.class));
+        query.multiselect(bucket, cb.count(root))
+                .where(specification.toPredicate(root, query, cb))
+                .groupBy(bucket)
+                .orderBy(cb.asc(bucket));
+
+        return entityManager.createQuery(query).getResultList().stream()
+                .map(tuple -> {
+                    double index = tuple.get(0, Number.class).doubleValue();
+                    return new PriceBucket(index * bucketSize, (index + 1) * bucketSize, tuple.get(1, Long.class));
+                })
+                .toList();
+    }
+
+    //multiplo inteiro do tamanho pedido, para as bordas continuarem alinhadas com o que o cliente pediu.
+    //com (max - min) / tamanho <= maxBuckets - 1 o floor dos dois lados cobre no maximo maxBuckets faixas
+    static double bucketSize(double requested, double minPrice, double maxPrice, int maxBuckets) {
+        double spans = (maxPrice - minPrice) / requested;
+        if (spans <= maxBuckets - 1) {
+            return requested;
+        }
+        return requested * Math.ceil(spans / (maxBuckets - 1));
+    }
+
+    @Override
+    public List<CategoryFacet> countByCategory(Specification<Product> specification) {
+        CriteriaBuilder cb = entityManager.getCriteriaBuilder();
+        CriteriaQuery<Tuple> query = cb.createTupleQuery();
+        Root<Product> root = query.from(Product.class);
+        Join<Product, Category> category = root.join("category");
+
+        query.multiselect(category.get("categoryId"), category.get("categoryName"), cb.count(root))
+                .where(specification.toPredicate(root, query, cb))
+                .groupBy(category.get("categoryId"), category.get("categoryName"))
+                .orderBy(cb.desc(cb.count(root)), cb.asc(category.get("categoryId")));
+
+        return entityManager.createQuery(query).getResultList().stream()
+                .map(tuple -> new CategoryFacet(tuple.get(0, Long.class), tuple.get(1, String.class),
+                        tuple.get(2, Long.class)))
+                .toList();
+    }
+}
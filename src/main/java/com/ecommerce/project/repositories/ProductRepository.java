@@ -2,14 +2,104 @@ package com.ecommerce.project.repositories;
 
 import com.ecommerce.project.model.Category;
 import com.ecommerce.project.model.Product;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
+import org.springframework.data.domain.Limit;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.JpaSpecificationExecutor;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.time.Instant;
+import java.util.Collection;
 import java.util.List;
+import java.util.stream.Stream;
 
 @Repository
-public interface ProductRepository extends JpaRepository<Product, Long> {
+public interface ProductRepository extends JpaRepository<Product, Long>, JpaSpecificationExecutor<Product>,
+        ProductFacetRepository {
     List<Product> findByCategoryOrderByPriceAsc(Category category);
 
-    List<Product> findByProductNameLikeIgnoreCase(String keyword);
+    Page<Product> findByProductNameLikeIgnoreCase(String keyword, Pageable pageable);
+
+    boolean existsByCategoryCategoryIdAndProductName(Long categoryId, String productName);
+
+    @Query("SELECT count(p) AS count, max(p.lastModified) AS lastModified FROM Product p")
+    CatalogState findCatalogState();
+
+    @Query("SELECT count(p) AS count, max(p.lastModified) AS lastModified FROM Product p " +
+            "WHERE p.category.categoryId = :categoryId")
+    CatalogState findCatalogStateByCategoryId(@Param("categoryId") Long categoryId);
+
+    long countByImage(String image);
+
+    long countByImageStartingWith(String prefix);
+
+    @Query("SELECT p.productName FROM Product p WHERE p.category.categoryId = :categoryId AND p.productName IN :names")
+    List<String> findProductNamesByCategoryIdAndProductNameIn(@Param("categoryId") Long categoryId,
+                                                             @Param("names") Collection<String> names);
+
+    //export: le em cursor com fetch size limitado, sem montar a lista inteira
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "500"))
+    @Query("SELECT p FROM Product p ORDER BY p.productId")
+    Stream<Product> streamAll();
+
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "500"))
+    @Query("SELECT p FROM Product p WHERE p.category.categoryId = :categoryId ORDER BY p.productId")
+    Stream<Product> streamByCategoryId(@Param("categoryId") Long categoryId);
+
+    //keyset (seek) pagination: sempre filtra pela ultima linha da pagina anterior
+    @Query("SELECT p FROM Product p WHERE p.productId > :productId ORDER BY p.productId ASC")
+    List<Product> findPageAfterIdAsc(@Param("productId") Long productId, Limit limit);
+
+    @Query("SELECT p FROM Product p WHERE p.productId < :productId ORDER BY p.productId DESC")
+    List<Product> findPageAfterIdDesc(@Param("productId") Long productId, Limit limit);
+
+    @Query("SELECT p FROM Product p WHERE p.price > :price OR (p.price = :price AND p.productId > :productId) " +
+            "ORDER BY p.price ASC, p.productId ASC")
+    List<Product> findPageAfterPriceAsc(@Param("price") double price, @Param("productId") Long productId, Limit limit);
+
+    @Query("SELECT p FROM Product p WHERE p.price < :price OR (p.price = :price AND p.productId < :productId) " +
+            "ORDER BY p.price DESC, p.productId DESC")
+    List<Product> findPageAfterPriceDesc(@Param("price") double price, @Param("productId") Long productId, Limit limit);
+
+    //linhas de um lote: so o que e preciso para inventario, cache e imagens, sem carregar entidades
+    interface BatchRow {
+        Long getProductId();
+
+        Long getCategoryId();
+
+        String getImage();
+
+        String getImageVariants();
+    }
+
+    @Query("SELECT p.productId AS productId, p.category.categoryId AS categoryId, p.image AS image, " +
+            "p.imageVariants AS imageVariants FROM Product p WHERE p.productId IN :productIds")
+    List<BatchRow> findBatchRowsByProductIdIn(@Param("productIds") Collection<Long> productIds);
+
+    //o pageable limita as linhas lidas: o lote por categoria tem o mesmo teto do lote por ids
+    @Query("SELECT p.productId AS productId, p.category.categoryId AS categoryId, p.image AS image, " +
+            "p.imageVariants AS imageVariants FROM Product p WHERE p.category.categoryId = :categoryId " +
+            "ORDER BY p.productId")
+    List<BatchRow> findBatchRowsByCategoryId(@Param("categoryId") Long categoryId, Pageable pageable);
+
+    //um UPDATE para o lote inteiro; specialPrice e recalculado no proprio SQL com os valores novos.
+    //bulk update nao passa pelo @UpdateTimestamp, entao lastModified vai explicito
+    @Modifying(flushAutomatically = true, clearAutomatically = true)
+    @Query("UPDATE Product p SET p.price = coalesce(:price, p.price), p.discount = coalesce(:discount, p.discount), " +
+            "p.specialPrice = coalesce(:price, p.price) - coalesce(:discount, p.discount) * 0.01 * coalesce(:price, p.price), " +
+            "p.lastModified = :now WHERE p.productId IN :productIds")
+    int updatePricing(@Param("productIds") Collection<Long> productIds, @Param("price") Double price,
+                      @Param("discount") Double discount, @Param("now") Instant now);
+
+    @Modifying(flushAutomatically = true, clearAutomatically = true)
+    @Query("UPDATE Product p SET p.quantity = :quantity, p.lastModified = :now WHERE p.productId IN :productIds")
+    int updateQuantity(@Param("productIds") Collection<Long> productIds, @Param("quantity") Integer quantity,
+                       @Param("now") Instant now);
 }
@@ -0,0 +1,48 @@
+package com.ecommerce.project.repositories;
+
+import com.ecommerce.project.model.Product;
+import com.ecommerce.project.payload.ProductFilter;
+import jakarta.persistence.criteria.Predicate;
+import org.springframework.data.jpa.domain.Specification;
+
+import java.util.ArrayList;
+import java.util.List;
+
+public final class ProductSpecifications {
+
+    private ProductSpecifications() {
+    }
+
+    public static Specification<Product> matching(ProductFilter filter) {
+        return matching(filter, true, true);
+    }
+
+    //os facets desligam o proprio filtro: o histograma ignora a faixa de preco e a contagem por categoria ignora a categoria
+    public static Specification<Product> matching(ProductFilter filter, boolean byPrice, boolean byCategory) {
+        return (root, query, cb) -> {
+            List<Predicate> predicates = new ArrayList<>();
+            if (byCategory && filter.getCategoryId() != null) {
+                predicates.add(cb.equal(root.get("category").get("categoryId"), filter.getCategoryId()));
+            }
+            if (byPrice && filter.getMinPrice() != null) {
+                predicates.add(cb.greaterThanOrEqualTo(root.get("price"), filter.getMinPrice()));
+            }
+            if (byPrice && filter.getMaxPrice() != null) {
+                predicates.add(cb.lessThanOrEqualTo(root.get("price"), filter.getMaxPrice()));
+            }
+            if (filter.getMinDiscount() != null) {
+                predicates.add(cb.greaterThanOrEqualTo(root.get("discount"), filter.getMinDiscount()));
+            }
+            if (filter.getMinSpecialPrice() != null) {
+                predicates.add(cb.greaterThanOrEqualTo(root.get("specialPrice"), filter.getMinSpecialPrice()));
+            }
+            if (filter.getMaxSpecialPrice() != null) {
+                predicates.add(cb.lessThanOrEqualTo(root.get("specialPrice"), filter.getMaxSpecialPrice()));
+            }
+            if (Boolean.TRUE.equals(filter.getInStock())) {
+                predicates.add(cb.greaterThan(root.get("quantity"), 0));
+            }
+            return cb.and(predicates.toArray(new Predicate[0]));
+        };
+    }
+}
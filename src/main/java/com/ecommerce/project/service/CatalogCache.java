@@ -0,0 +1,77 @@
+package com.ecommerce.project.service;
+
+import com.ecommerce.project.config.CacheConfig;
+import com.ecommerce.project.event.CatalogChangedEvent;
+import com.ecommerce.project.payload.CacheStatsDTO;
+import com.github.benmanes.caffeine.cache.stats.CacheStats;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.cache.caffeine.CaffeineCache;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.util.List;
+
+@Component
+public class CatalogCache {
+
+    @Autowired
+    private CacheManager cacheManager;
+
+    @Autowired
+    private CatalogVersions catalogVersions;
+
+    @Autowired
+    private CategorySnapshots categorySnapshots;
+
+    //dentro de transacao roda depois do commit. fallbackExecution: o lote, o import e o flush do estoque
+    //publicam depois do proprio commit, ja fora de transacao, entao ali roda na hora
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onCatalogChanged(CatalogChangedEvent event) {
+        if (event.type() == CatalogChangedEvent.Type.CATEGORY) {
+            //qualquer mudanca de categoria altera todas as paginas da listagem
+            clear(CacheConfig.CATEGORIES);
+        }
+        if (event.categoryId() != null) {
+            evict(CacheConfig.CATEGORY_PRODUCTS, event.categoryId());
+        } else {
+            clear(CacheConfig.CATEGORY_PRODUCTS);
+        }
+        categorySnapshots.invalidate(event.categoryId());
+
+        //so depois de invalidar: quem ler a versao nova nunca pega o valor velho do cache
+        if (event.type() == CatalogChangedEvent.Type.CATEGORY) {
+            catalogVersions.categoryChanged(event.categoryId());
+        } else {
+            catalogVersions.productsChanged(event.categoryId());
+        }
+    }
+
+    public List<CacheStatsDTO> getStats() {
+        return cacheManager.getCacheNames().stream()
+                .map(cacheManager::getCache)
+                .filter(CaffeineCache.class::isInstance)
+                .map(CaffeineCache.class::cast)
+                .map(cache -> {
+                    CacheStats stats = cache.getNativeCache().stats();
+                    return new CacheStatsDTO(cache.getName(), cache.getNativeCache().estimatedSize(),
+                            stats.hitCount(), stats.missCount(), stats.evictionCount(), stats.hitRate());
+                })
+                .toList();
+    }
+
+    private void clear(String cacheName) {
+        Cache cache = cacheManager.getCache(cacheName);
+        if (cache != null) {
+            cache.clear();
+        }
+    }
+
+    private void evict(String cacheName, Object key) {
+        Cache cache = cacheManager.getCache(cacheName);
+        if (cache != null) {
+            cache.evict(key);
+        }
+    }
+}
@@ -0,0 +1,37 @@
+package com.ecommerce.project.service;
+
+import com.ecommerce.project.model.CatalogEventType;
+import com.ecommerce.project.payload.CatalogEventDTO;
+import com.ecommerce.project.payload.CatalogEventResponse;
+
+import java.util.List;
+import java.util.function.Consumer;
+
+public interface CatalogEventService {
+
+    //uma mudanca a registrar; payload vira JSON (null em deletes)
+    record Change(CatalogEventType type, Long entityId, Long categoryId, Object payload) {
+    }
+
+    interface Subscription {
+        //ultima sequence entregue ao subscriber
+        long position();
+
+        void cancel();
+    }
+
+    //precisa de transacao ativa: o evento so existe se a escrita que ele descreve for commitada
+    void append(Change change);
+
+    void appendAll(List<Change> changes);
+
+    CatalogEventResponse readAfter(long afterSequence, int limit);
+
+    //ponto seguro para comecar um subscriber depois de ler o estado atual do banco: nenhuma transacao ainda
+    //aberta tem evento antes dele. o que vem depois pode repetir o que o estado lido ja tem
+    long settledSequence();
+
+    //entrega em lotes, em ordem, a partir de afterSequence (replay) e depois cada commit novo.
+    //pelo menos uma vez: se o handler lancar exception o mesmo lote e entregue de novo na proxima rodada
+    Subscription subscribe(String name, long afterSequence, int batchSize, Consumer<List<CatalogEventDTO>> handler);
+}
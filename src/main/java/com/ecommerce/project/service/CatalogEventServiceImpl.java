@@ -0,0 +1,272 @@
+package com.ecommerce.project.service;
+
+import com.ecommerce.project.exceptions.APIException;
+import com.ecommerce.project.model.CatalogEvent;
+import com.ecommerce.project.payload.CatalogEventDTO;
+import com.ecommerce.project.payload.CatalogEventResponse;
+import com.ecommerce.project.repositories.CatalogEventRepository;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.Limit;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.Consumer;
+
+//outbox do catalogo: cada escrita grava seus eventos na propria transacao, numerados por uma sequence do banco.
+//a sequence e pega no insert e nao no commit, entao um numero menor pode aparecer depois de um maior; quem le
+//"depois da sequence N" so anda ate o primeiro buraco, para nunca pular um evento commitado mais tarde
+@Service
+public class CatalogEventServiceImpl implements CatalogEventService {
+
+    private static final Logger log = LoggerFactory.getLogger(CatalogEventServiceImpl.class);
+
+    @Autowired
+    private CatalogEventRepository catalogEventRepository;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Value("${project.events.retention:7d}")
+    private Duration retention;
+
+    //um buraco mais velho que isto nao vai mais ser preenchido: a transacao foi desfeita depois de pegar o numero
+    @Value("${project.events.gap-timeout:10s}")
+    private Duration gapTimeout;
+
+    private final List<SubscriptionImpl> subscriptions = new CopyOnWriteArrayList<>();
+    //uma thread entrega para todos os subscribers; varios commits seguidos viram uma rodada so
+    private final ExecutorService dispatcher = Executors.newSingleThreadExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "catalog-events");
+        thread.setDaemon(true);
+        return thread;
+    });
+    private final AtomicBoolean dispatchPending = new AtomicBoolean();
+    //sequences de transacoes desfeitas nesta instancia: o buraco delas e pulado sem esperar o gap-timeout
+    private final Map<Long, Instant> rolledBack = new ConcurrentHashMap<>();
+
+    @PreDestroy
+    public void shutdown() {
+        dispatcher.shutdown();
+    }
+
+    @Override
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void append(Change change) {
+        appendAll(List.of(change));
+    }
+
+    @Override
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void appendAll(List<Change> changes) {
+        if (changes.isEmpty()) {
+            return;
+        }
+        Instant now = Instant.now();
+        List<CatalogEvent> saved = catalogEventRepository.saveAll(changes.stream()
+                .map(change -> new CatalogEvent(null, change.type(), change.entityId(), change.categoryId(),
+                        toJson(change.payload()), now))
+                .toList());
+
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                dispatchSoon();
+            }
+
+            @Override
+            public void afterCompletion(int status) {
+                if (status == STATUS_ROLLED_BACK) {
+                    Instant at = Instant.now();
+                    saved.forEach(event -> rolledBack.put(event.getSequence(), at));
+                    dispatchSoon();
+                }
+            }
+        });
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public CatalogEventResponse readAfter(long afterSequence, int limit) {
+        if (limit < 1) {
+            throw new APIException("limit must be greater than zero");
+        }
+        List<CatalogEventDTO> events = settled(afterSequence, catalogEventRepository
+                .findBySequenceGreaterThanOrderBySequenceAsc(afterSequence, Limit.of(limit))).stream()
+                .map(CatalogEventServiceImpl::toDTO)
+                .toList();
+        long lastSequence = catalogEventRepository.findFirstByOrderBySequenceDesc()
+                .map(CatalogEvent::getSequence)
+                .orElse(0L);
+        long firstAvailable = catalogEventRepository.findFirstByOrderBySequenceAsc()
+                .map(CatalogEvent::getSequence)
+                .orElse(lastSequence + 1);
+        long nextAfter = events.isEmpty() ? afterSequence : events.get(events.size() - 1).getSequence();
+        return new CatalogEventResponse(events, nextAfter, lastSequence, firstAvailable);
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public long settledSequence() {
+        //um evento em transacao aberta tem numero maior que este, ou o buraco dele ja seria pulado por todo leitor
+        return catalogEventRepository.findFirstByCreatedAtLessThanEqualOrderBySequenceDesc(
+                        Instant.now().minus(gapTimeout))
+                .map(CatalogEvent::getSequence)
+                .orElse(0L);
+    }
+
+    @Override
+    public Subscription subscribe(String name, long afterSequence, int batchSize,
+                                  Consumer<List<CatalogEventDTO>> handler) {
+        if (batchSize < 1) {
+            throw new APIException("batchSize must be greater than zero");
+        }
+        SubscriptionImpl subscription = new SubscriptionImpl(name, afterSequence, batchSize, handler);
+        subscriptions.add(subscription);
+        //replay do que ja existe depois de afterSequence
+        dispatchSoon();
+        return subscription;
+    }
+
+    //rede de seguranca para eventos gravados por outra instancia ou entregas que falharam
+    @Scheduled(fixedDelayString = "${project.events.poll-interval:5s}")
+    public void poll() {
+        //depois do gap-timeout o buraco ja e pulado de qualquer jeito
+        Instant expired = Instant.now().minus(gapTimeout);
+        rolledBack.values().removeIf(at -> at.isBefore(expired));
+        if (!subscriptions.isEmpty()) {
+            dispatchSoon();
+        }
+    }
+
+    @Scheduled(fixedDelayString = "${project.events.purge-interval:1h}")
+    public void purge() {
+        long upTo = subscriptions.stream().mapToLong(SubscriptionImpl::position).min().orElse(Long.MAX_VALUE);
+        int purged = catalogEventRepository.deleteOlderThan(Instant.now().minus(retention), upTo);
+        if (purged > 0) {
+            log.info("Purged {} catalog events older than {}", purged, retention);
+        }
+    }
+
+    private void dispatchSoon() {
+        if (dispatchPending.compareAndSet(false, true)) {
+            dispatcher.execute(() -> {
+                dispatchPending.set(false);
+                subscriptions.forEach(this::deliver);
+            });
+        }
+    }
+
+    private void deliver(SubscriptionImpl subscription) {
+        while (!subscription.cancelled) {
+            List<CatalogEvent> found = catalogEventRepository.findBySequenceGreaterThanOrderBySequenceAsc(
+                    subscription.position, Limit.of(subscription.batchSize));
+            List<CatalogEvent> batch = settled(subscription.position, found);
+            if (batch.isEmpty()) {
+                //buraco recente: o commit que falta dispara outra rodada, e o poll cobre o rollback
+                return;
+            }
+            try {
+                subscription.handler.accept(batch.stream().map(CatalogEventServiceImpl::toDTO).toList());
+            } catch (RuntimeException e) {
+                log.warn("Catalog event subscriber {} failed after sequence {}, retrying later: {}",
+                        subscription.name, subscription.position, e.getMessage());
+                return;
+            }
+            subscription.position = batch.get(batch.size() - 1).getSequence();
+            if (found.size() < subscription.batchSize || batch.size() < found.size()) {
+                return;
+            }
+        }
+    }
+
+    //o trecho sem buraco a partir de "after". um numero que falta e de uma transacao ainda aberta ou desfeita;
+    //fora os rollbacks desta instancia so da para saber pelo tempo: o buraco e pulado quando o evento seguinte
+    //ja passou do gapTimeout
+    private List<CatalogEvent> settled(long after, List<CatalogEvent> events) {
+        Instant abandoned = Instant.now().minus(gapTimeout);
+        long expected = after + 1;
+        int end = 0;
+        for (CatalogEvent event : events) {
+            if (event.getSequence() != expected && event.getCreatedAt().isAfter(abandoned)
+                    && !rolledBack(expected, event.getSequence())) {
+                break;
+            }
+            expected = event.getSequence() + 1;
+            end++;
+        }
+        return events.subList(0, end);
+    }
+
+    private boolean rolledBack(long from, long to) {
+        if (to - from > rolledBack.size()) {
+            return false;
+        }
+        for (long sequence = from; sequence < to; sequence++) {
+            if (!rolledBack.containsKey(sequence)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private String toJson(Object payload) {
+        if (payload == null) {
+            return null;
+        }
+        try {
+            return objectMapper.writeValueAsString(payload);
+        } catch (JsonProcessingException e) {
+            throw new APIException("Could not serialize catalog event: " + e.getMessage());
+        }
+    }
+
+    private static CatalogEventDTO toDTO(CatalogEvent event) {
+        return new CatalogEventDTO(event.getSequence(), event.getType(), event.getEntityId(), event.getCategoryId(),
+                event.getPayload(), event.getCreatedAt());
+    }
+
+    private class SubscriptionImpl implements Subscription {
+        private final String name;
+        private final int batchSize;
+        private final Consumer<List<CatalogEventDTO>> handler;
+        private volatile long position;
+        private volatile boolean cancelled;
+
+        SubscriptionImpl(String name, long position, int batchSize, Consumer<List<CatalogEventDTO>> handler) {
+            this.name = name;
+            this.position = position;
+            this.batchSize = batchSize;
+            this.handler = handler;
+        }
+
+        @Override
+        public long position() {
+            return position;
+        }
+
+        @Override
+        public void cancel() {
+            cancelled = true;
+            subscriptions.remove(this);
+        }
+    }
+}
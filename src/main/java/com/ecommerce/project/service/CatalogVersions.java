@@ -0,0 +1,104 @@
+package com.ecommerce.project.service;
+
+import com.ecommerce.project.config.CacheConfig;
+import com.ecommerce.project.repositories.CatalogState;
+import com.ecommerce.project.repositories.CategoryRepository;
+import com.ecommerce.project.repositories.ProductRepository;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.stereotype.Component;
+
+import java.time.Instant;
+import java.time.temporal.ChronoUnit;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Supplier;
+
+//versoes das listagens publicas, para responder If-None-Match/If-Modified-Since sem montar a resposta.
+//o ETag sai do banco (contagem + max(last_modified)), igual em todas as instancias e apos restart;
+//aqui fica so um cache curto dele, invalidado pelo CatalogCache depois do commit
+@Component
+public class CatalogVersions {
+
+    public record Version(String eTag, Instant lastModified) {
+    }
+
+    @Autowired
+    private ProductRepository productRepository;
+
+    @Autowired
+    private CategoryRepository categoryRepository;
+
+    @Autowired
+    private CacheManager cacheManager;
+
+    //ultima versao calculada de cada listagem, para o Last-Modified sempre andar para frente
+    private final Map<String, Version> previous = new ConcurrentHashMap<>();
+
+    //todas as paginas de /public/products
+    public Version products() {
+        return version("p", productRepository::findCatalogState);
+    }
+
+    //todas as paginas de /public/categories
+    public Version categories() {
+        return version("c", categoryRepository::findCatalogState);
+    }
+
+    //produtos de uma categoria
+    public Version categoryProducts(Long categoryId) {
+        return version("c" + categoryId + "p", () -> productRepository.findCatalogStateByCategoryId(categoryId));
+    }
+
+    //chamado depois do commit e depois da invalidacao do cache, para nunca marcar um dado velho com a versao nova
+    public void categoryChanged(Long categoryId) {
+        cache().evict("c");
+        //apagar uma categoria apaga os produtos dela
+        productsChanged(categoryId);
+    }
+
+    public void productsChanged(Long categoryId) {
+        Cache cache = cache();
+        if (categoryId == null) {
+            cache.clear();
+        } else {
+            cache.evict("p");
+            cache.evict("c" + categoryId + "p");
+        }
+    }
+
+    //consulta fora do get(key, loader): o loader segura o lock da chave no Caffeine, e a escrita que invalida
+    //essa chave depois do commit ainda segura a conexao dela; com o pool cheio um espera o outro para sempre.
+    //o put de um miss antigo e descartado pelo GenerationGuardedCache
+    private Version version(String resource, Supplier<CatalogState> state) {
+        Cache cache = cache();
+        Version cached = cache.get(resource, Version.class);
+        if (cached != null) {
+            return cached;
+        }
+        Version version = next(resource, state.get());
+        cache.put(resource, version);
+        return version;
+    }
+
+    private Version next(String resource, CatalogState state) {
+        Instant lastModified = state.getLastModified() == null ? Instant.EPOCH : state.getLastModified();
+        String eTag = "\"" + resource + state.getCount() + "-" + Long.toString(ChronoUnit.MICROS.between(
+                Instant.EPOCH, lastModified), 36) + "\"";
+        return previous.compute(resource, (key, before) -> {
+            if (before != null && before.eTag().equals(eTag)) {
+                return before;
+            }
+            //Last-Modified tem resolucao de segundos e um delete nao mexe em max(last_modified): toda versao
+            //nova anda pelo menos 1s, senao um cliente so com If-Modified-Since recebe 304 de dado velho
+            Instant second = lastModified.truncatedTo(ChronoUnit.SECONDS);
+            return new Version(eTag, before == null || second.isAfter(before.lastModified())
+                    ? second : before.lastModified().plusSeconds(1));
+        });
+    }
+
+    private Cache cache() {
+        return cacheManager.getCache(CacheConfig.CATALOG_VERSIONS);
+    }
+}
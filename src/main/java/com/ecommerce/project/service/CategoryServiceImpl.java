@@ -1,19 +1,30 @@
 package com.ecommerce.project.service;
 
+import com.ecommerce.project.config.CacheConfig;
+import com.ecommerce.project.config.MetricsConfig;
+import com.ecommerce.project.config.SingleFlight;
+import com.ecommerce.project.event.CatalogChangedEvent;
+import com.ecommerce.project.event.ImageReleasedEvent;
 import com.ecommerce.project.exceptions.APIException;
 import com.ecommerce.project.exceptions.ResourceNotFoundException;
+import com.ecommerce.project.mapper.CategoryMapper;
+import com.ecommerce.project.model.CatalogEventType;
 import com.ecommerce.project.model.Category;
+import com.ecommerce.project.model.Product;
 import com.ecommerce.project.payload.CategoryDTO;
 import com.ecommerce.project.payload.CategoryResponse;
 import com.ecommerce.project.repositories.CategoryRepository;
-import org.modelmapper.ModelMapper;
+import io.micrometer.core.annotation.Timed;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.cache.annotation.Cacheable;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.domain.Sort;
 import org.springframework.http.HttpStatus;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
 import org.springframework.web.server.ResponseStatusException;
 
 import java.util.ArrayList;
@@ -22,15 +33,28 @@ import java.util.Optional;
 import java.util.stream.Collectors;
 
 @Service
+@Timed(MetricsConfig.SERVICE_TIMER)
 public class CategoryServiceImpl implements CategoryService {
 
     @Autowired
     private CategoryRepository categoryRepository;
 
     @Autowired
-    private ModelMapper modelMapper;
+    private CategoryMapper categoryMapper;
+
+    @Autowired
+    private InventoryService inventoryService;
+
+    @Autowired
+    private ApplicationEventPublisher eventPublisher;
+
+    @Autowired
+    private CatalogEventService catalogEventService;
 
     @Override
+    @SingleFlight
+    @Transactional(readOnly = true)
+    @Cacheable(cacheNames = CacheConfig.CATEGORIES, key = "#pageNumber + ':' + #pageSize + ':' + #sortBy + ':' + #sortOrder")
     public CategoryResponse getAllCategories(Integer pageNumber, Integer pageSize, String sortBy, String sortOrder) {
         Sort sortByAndOrder = sortOrder.equalsIgnoreCase("asc")
                 ? Sort.by(sortBy).ascending() //if sortByandOrder = asc  sort by ascending else descending
@@ -43,7 +67,7 @@ public class CategoryServiceImpl implements CategoryService {
             throw new APIException("Category list is empty.");
         }
         List<CategoryDTO> categoryDTOS = categories.stream()
-                .map(category -> modelMapper.map(category, CategoryDTO.class))
+                .map(categoryMapper::toDTO)
                 .toList();
 
         CategoryResponse categoryResponse = new CategoryResponse();
@@ -57,38 +81,61 @@ public class CategoryServiceImpl implements CategoryService {
     }
 
     @Override
+    @Transactional
     public CategoryDTO createCategory(CategoryDTO categoryDTO) {
-        Category category = modelMapper.map(categoryDTO, Category.class);
+        Category category = categoryMapper.toEntity(categoryDTO);
 
         Category categoryFromDb = categoryRepository.findByCategoryName(category.getCategoryName());
         if (categoryFromDb != null) {
             throw new APIException("Category already exists with name " + category.getCategoryName());
         }
         Category savedCategory = categoryRepository.save(category);
+        CategoryDTO savedCategoryDTO = categoryMapper.toDTO(savedCategory);
+        catalogEventService.append(new CatalogEventService.Change(CatalogEventType.CATEGORY_CREATED,
+                savedCategory.getCategoryId(), savedCategory.getCategoryId(), savedCategoryDTO));
+        eventPublisher.publishEvent(CatalogChangedEvent.category(savedCategory.getCategoryId()));
 
-        return modelMapper.map(savedCategory, CategoryDTO.class);
+        return savedCategoryDTO;
 
     }
 
     @Override
+    @Transactional
     public CategoryDTO deleteCategory(Long categoryId) {
-        Category savedCategory = categoryRepository.findById(categoryId)
+        Category savedCategory = categoryRepository.findWithProductsByCategoryId(categoryId)
                 .orElseThrow(() -> new ResourceNotFoundException("Category", "CategoryId", categoryId));
 
+        //o cascade apaga os produtos junto, entao eles saem do estoque e liberam as imagens tambem
+        List<Product> products = List.copyOf(savedCategory.getProducts());
+        AfterCommit.run(() -> products.forEach(product -> inventoryService.evict(product.getProductId())));
         categoryRepository.delete(savedCategory);
-
-        return modelMapper.map(savedCategory, CategoryDTO.class);
+        //um evento por produto apagado em cascata: quem consome o log nao precisa saber do cascade
+        List<CatalogEventService.Change> changes = new ArrayList<>(products.size() + 1);
+        products.forEach(product -> changes.add(new CatalogEventService.Change(CatalogEventType.PRODUCT_DELETED,
+                product.getProductId(), categoryId, null)));
+        changes.add(new CatalogEventService.Change(CatalogEventType.CATEGORY_DELETED, categoryId, categoryId, null));
+        catalogEventService.appendAll(changes);
+        eventPublisher.publishEvent(CatalogChangedEvent.category(categoryId));
+        products.forEach(product ->
+                eventPublisher.publishEvent(new ImageReleasedEvent(product.getImage(), product.getImageVariants())));
+
+        return categoryMapper.toDTO(savedCategory);
     }
 
 
     @Override
+    @Transactional
     public CategoryDTO updateCategory(CategoryDTO categoryDTO, Long categoryId) {
 
         Category savedCategory = categoryRepository.findById(categoryId)
                 .orElseThrow(() -> new ResourceNotFoundException("Category", "CategoryName", categoryDTO.getCategoryName()));
-        Category category = modelMapper.map(categoryDTO, Category.class);
+        Category category = categoryMapper.toEntity(categoryDTO);
         category.setCategoryId(categoryId);
         savedCategory = categoryRepository.save(category);
-        return modelMapper.map(savedCategory, CategoryDTO.class);
+        CategoryDTO savedCategoryDTO = categoryMapper.toDTO(savedCategory);
+        catalogEventService.append(new CatalogEventService.Change(CatalogEventType.CATEGORY_UPDATED, categoryId,
+                categoryId, savedCategoryDTO));
+        eventPublisher.publishEvent(CatalogChangedEvent.category(categoryId));
+        return savedCategoryDTO;
     }
 }
@@ -0,0 +1,86 @@
+package com.ecommerce.project.service;
+
+import com.ecommerce.project.payload.ProductResponse;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.zip.GZIPOutputStream;
+
+//JSON ja serializado e comprimido dos produtos de cada categoria; o controller escreve os bytes direto
+//na resposta, sem carregar entidades, mapear ou serializar
+@Component
+public class CategorySnapshots {
+
+    public record Snapshot(byte[] gzip, int jsonLength) {
+    }
+
+    @Autowired
+    private ProductService productService;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Value("${project.snapshot.enabled:false}")
+    private boolean enabled;
+
+    private final Map<Long, CompletableFuture<Snapshot>> snapshots = new ConcurrentHashMap<>();
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    public Snapshot get(Long categoryId) {
+        CompletableFuture<Snapshot> snapshot = snapshots.get(categoryId);
+        if (snapshot == null) {
+            //so uma thread monta o snapshot de cada categoria; as outras esperam o mesmo resultado
+            CompletableFuture<Snapshot> building = new CompletableFuture<>();
+            snapshot = snapshots.putIfAbsent(categoryId, building);
+            if (snapshot == null) {
+                snapshot = building;
+                try {
+                    building.complete(build(categoryId));
+                } catch (RuntimeException e) {
+                    snapshots.remove(categoryId, building);
+                    building.completeExceptionally(e);
+                }
+            }
+        }
+        try {
+            return snapshot.join();
+        } catch (CompletionException e) {
+            throw e.getCause() instanceof RuntimeException cause ? cause : e;
+        }
+    }
+
+    //chamado pelo CatalogCache depois do commit; a proxima leitura monta de novo so esta categoria
+    public void invalidate(Long categoryId) {
+        if (categoryId == null) {
+            snapshots.clear();
+        } else {
+            snapshots.remove(categoryId);
+        }
+    }
+
+    private Snapshot build(Long categoryId) {
+        ProductResponse productResponse = productService.seachByCategory(categoryId);
+        try {
+            byte[] json = objectMapper.writeValueAsBytes(productResponse);
+            ByteArrayOutputStream bytes = new ByteArrayOutputStream(Math.max(64, json.length / 4));
+            try (GZIPOutputStream gzip = new GZIPOutputStream(bytes)) {
+                gzip.write(json);
+            }
+            return new Snapshot(bytes.toByteArray(), json.length);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+}
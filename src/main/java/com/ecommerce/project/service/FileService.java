@@ -3,7 +3,20 @@ package com.ecommerce.project.service;
 import org.springframework.web.multipart.MultipartFile;
 
 import java.io.IOException;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.concurrent.locks.Lock;
 
 public interface FileService {
-    String uploadImage(String path, MultipartFile file) throws IOException;
+    StagedImage stageImage(String stagingPath, MultipartFile file) throws IOException;
+
+    String storeImage(String path, StagedImage stagedImage) throws IOException;
+
+    List<String> createVariants(String path, String fileName, List<Integer> sizes) throws IOException;
+
+    Lock imageLock(String fileName);
+
+    void deleteImageIfUnreferenced(String path, String fileName, String imageVariants) throws IOException;
+
+    Path resolveImage(String path, String fileName);
 }
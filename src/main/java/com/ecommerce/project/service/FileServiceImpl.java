@@ -1,34 +1,264 @@
 package com.ecommerce.project.service;
 
+import com.ecommerce.project.config.MetricsConfig;
+import com.ecommerce.project.event.ImageReleasedEvent;
+import com.ecommerce.project.exceptions.APIException;
+import com.ecommerce.project.exceptions.ResourceNotFoundException;
+import com.ecommerce.project.repositories.ProductRepository;
+import io.micrometer.core.annotation.Timed;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionalEventListener;
 import org.springframework.web.multipart.MultipartFile;
 
-import java.io.File;
+import javax.imageio.IIOImage;
+import javax.imageio.ImageIO;
+import javax.imageio.ImageReader;
+import javax.imageio.ImageWriteParam;
+import javax.imageio.ImageWriter;
+import javax.imageio.stream.ImageInputStream;
+import javax.imageio.stream.ImageOutputStream;
+import java.awt.Color;
+import java.awt.Graphics2D;
+import java.awt.RenderingHints;
+import java.awt.image.BufferedImage;
 import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.FileAlreadyExistsException;
 import java.nio.file.Files;
+import java.nio.file.Path;
 import java.nio.file.Paths;
-import java.util.UUID;
+import java.nio.file.StandardCopyOption;
+import java.security.DigestInputStream;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.HexFormat;
+import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.regex.Pattern;
 
+//imagens guardadas pelo SHA-256 do conteudo: o mesmo arquivo enviado varias vezes fica uma vez so no disco
 @Service
+@Timed(MetricsConfig.SERVICE_TIMER)
 public class FileServiceImpl implements FileService {
 
+    private static final String VARIANT_FORMAT = "jpg";
+    private static final float VARIANT_QUALITY = 0.82f;
+    private static final String DEFAULT_IMAGE = "default";
+    private static final Pattern FILE_NAME = Pattern.compile("[A-Za-z0-9_-]+(\\.[A-Za-z0-9]+)?");
+    private static final int LOCK_STRIPES = 64;
+
+    @Autowired
+    private ProductRepository productRepository;
+
+    @Value("${project.image}")
+    private String imagePath;
+
+    @Value("${project.image.max-pixels:40000000}")
+    private long maxPixels;
+
+    private final Lock[] locks = new Lock[LOCK_STRIPES];
+
+    public FileServiceImpl() {
+        for (int i = 0; i < LOCK_STRIPES; i++) {
+            locks[i] = new ReentrantLock();
+        }
+    }
+
     @Override
-    public String uploadImage(String path, MultipartFile file) throws IOException {
-        String originalFilename = file.getOriginalFilename();
+    public StagedImage stageImage(String stagingPath, MultipartFile file) throws IOException {
+        Path staging = Paths.get(stagingPath);
+        Files.createDirectories(staging);
+        Path stagedFile = Files.createTempFile(staging, "upload-", ".tmp");
 
-        String randomId = UUID.randomUUID().toString();
+        //o hash sai da mesma leitura que grava o arquivo, sem segunda passada
+        MessageDigest digest = sha256();
+        try (InputStream input = new DigestInputStream(file.getInputStream(), digest)) {
+            Files.copy(input, stagedFile, StandardCopyOption.REPLACE_EXISTING);
+        }
+        return new StagedImage(stagedFile, HexFormat.of().formatHex(digest.digest()), extension(file.getOriginalFilename()));
+    }
 
-        String fileName = randomId.concat(originalFilename.substring(originalFilename.lastIndexOf(".")));
-        String filePath = path + File.separator + fileName;
+    @Override
+    public String storeImage(String path, StagedImage stagedImage) throws IOException {
+        String fileName = stagedImage.hash().concat(stagedImage.extension());
+        Path filePath = Paths.get(path, fileName);
+        Files.createDirectories(filePath.getParent());
 
-        File folder = new File(path);
-        if (!folder.exists()) {
-            folder.mkdirs();
+        if (Files.exists(filePath)) {
+            //mesmo conteudo ja armazenado
+            Files.deleteIfExists(stagedImage.file());
+            return fileName;
+        }
+        try {
+            Files.move(stagedImage.file(), filePath, StandardCopyOption.ATOMIC_MOVE);
+        } catch (AtomicMoveNotSupportedException e) {
+            Files.move(stagedImage.file(), filePath);
+        } catch (FileAlreadyExistsException e) {
+            Files.deleteIfExists(stagedImage.file());
         }
+        return fileName;
+    }
 
-        Files.copy(file.getInputStream(), Paths.get(filePath));
-        return filePath;
+    @Override
+    public List<String> createVariants(String path, String fileName, List<Integer> sizes) throws IOException {
+        String baseName = baseName(fileName);
+        List<String> variants = new ArrayList<>(sizes.size());
+        BufferedImage original = null;
+        for (Integer size : sizes) {
+            String variantName = baseName + "_" + size + "." + VARIANT_FORMAT;
+            Path variantPath = Paths.get(path, variantName);
+            if (!Files.exists(variantPath)) {
+                if (original == null) {
+                    original = decode(Paths.get(path, fileName), fileName);
+                }
+                writeJpeg(resize(original, size), variantPath);
+            }
+            variants.add(variantName);
+        }
+        return variants;
+    }
+
+    //le as dimensoes do cabecalho e so decodifica se couber no limite; ImageIO.read alocaria a imagem inteira
+    private BufferedImage decode(Path file, String fileName) throws IOException {
+        try (ImageInputStream input = ImageIO.createImageInputStream(file.toFile())) {
+            Iterator<ImageReader> readers = input == null ? null : ImageIO.getImageReaders(input);
+            if (readers == null || !readers.hasNext()) {
+                throw new APIException("Unsupported image format for " + fileName);
+            }
+            ImageReader reader = readers.next();
+            try {
+                reader.setInput(input, true, true);
+                long pixels = (long) reader.getWidth(0) * reader.getHeight(0);
+                if (pixels > maxPixels) {
+                    throw new APIException("Image " + fileName + " has " + pixels + " pixels, the limit is " + maxPixels);
+                }
+                return reader.read(0);
+            } finally {
+                reader.dispose();
+            }
+        }
+    }
 
+    @Override
+    public Lock imageLock(String fileName) {
+        return locks[Math.floorMod(hashOf(fileName).hashCode(), LOCK_STRIPES)];
+    }
 
+    @Override
+    public void deleteImageIfUnreferenced(String path, String fileName, String imageVariants) throws IOException {
+        if (fileName == null || DEFAULT_IMAGE.equals(fileName)) {
+            return;
+        }
+        //contagem de referencias = produtos que ainda apontam para o arquivo
+        Lock lock = imageLock(fileName);
+        lock.lock();
+        try {
+            if (productRepository.countByImage(fileName) > 0) {
+                return;
+            }
+            Files.deleteIfExists(Paths.get(path, fileName));
+            //as variantes sao so do hash (<hash>_<size>.jpg): o mesmo conteudo enviado com outra extensao
+            //usa as mesmas, entao so apaga quando nenhum produto aponta para esse hash
+            if (productRepository.countByImageStartingWith(hashOf(fileName)) > 0) {
+                return;
+            }
+            if (imageVariants != null && !imageVariants.isBlank()) {
+                for (String variant : imageVariants.split(",")) {
+                    Files.deleteIfExists(Paths.get(path, variant));
+                }
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onImageReleased(ImageReleasedEvent event) {
+        try {
+            deleteImageIfUnreferenced(imagePath, event.image(), event.imageVariants());
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    @Override
+    public Path resolveImage(String path, String fileName) {
+        if (!FILE_NAME.matcher(fileName).matches()) {
+            throw new ResourceNotFoundException("Image", "fileName", fileName);
+        }
+        Path file = Paths.get(path, fileName);
+        if (!Files.isRegularFile(file)) {
+            throw new ResourceNotFoundException("Image", "fileName", fileName);
+        }
+        return file;
+    }
+
+    private static MessageDigest sha256() {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private static String baseName(String fileName) {
+        return fileName.contains(".") ? fileName.substring(0, fileName.lastIndexOf('.')) : fileName;
+    }
+
+    //variantes compartilham o lock do original: <hash>_<size>.jpg
+    private static String hashOf(String fileName) {
+        String baseName = baseName(fileName);
+        int underscore = baseName.indexOf('_');
+        return underscore < 0 ? baseName : baseName.substring(0, underscore);
+    }
+
+    private static String extension(String originalFilename) {
+        if (originalFilename == null || !originalFilename.contains(".")) {
+            return "";
+        }
+        String extension = originalFilename.substring(originalFilename.lastIndexOf(".")).toLowerCase();
+        return FILE_NAME.matcher("x" + extension).matches() ? extension : "";
+    }
+
+    //cabe dentro de size x size mantendo a proporcao; nunca aumenta a imagem
+    private static BufferedImage resize(BufferedImage original, int size) {
+        double scale = Math.min(1.0, (double) size / Math.max(original.getWidth(), original.getHeight()));
+        int width = Math.max(1, (int) Math.round(original.getWidth() * scale));
+        int height = Math.max(1, (int) Math.round(original.getHeight() * scale));
+
+        BufferedImage resized = new BufferedImage(width, height, BufferedImage.TYPE_INT_RGB);
+        Graphics2D graphics = resized.createGraphics();
+        try {
+            graphics.setRenderingHint(RenderingHints.KEY_INTERPOLATION, RenderingHints.VALUE_INTERPOLATION_BICUBIC);
+            graphics.setRenderingHint(RenderingHints.KEY_RENDERING, RenderingHints.VALUE_RENDER_QUALITY);
+            graphics.setRenderingHint(RenderingHints.KEY_ANTIALIASING, RenderingHints.VALUE_ANTIALIAS_ON);
+            //JPEG nao tem transparencia
+            graphics.setColor(Color.WHITE);
+            graphics.fillRect(0, 0, width, height);
+            graphics.drawImage(original, 0, 0, width, height, null);
+        } finally {
+            graphics.dispose();
+        }
+        return resized;
+    }
+
+    private static void writeJpeg(BufferedImage image, Path target) throws IOException {
+        ImageWriter writer = ImageIO.getImageWritersByFormatName(VARIANT_FORMAT).next();
+        ImageWriteParam param = writer.getDefaultWriteParam();
+        param.setCompressionMode(ImageWriteParam.MODE_EXPLICIT);
+        param.setCompressionQuality(VARIANT_QUALITY);
+        try (ImageOutputStream output = ImageIO.createImageOutputStream(target.toFile())) {
+            writer.setOutput(output);
+            writer.write(null, new IIOImage(image, null, null), param);
+        } finally {
+            writer.dispose();
+        }
     }
 }
@@ -0,0 +1,12 @@
+package com.ecommerce.project.service;
+
+import com.ecommerce.project.payload.ImageProcessingStatus;
+import org.springframework.web.multipart.MultipartFile;
+
+import java.io.IOException;
+
+public interface ImageProcessingService {
+    ImageProcessingStatus submit(Long productId, MultipartFile image) throws IOException;
+
+    ImageProcessingStatus getStatus(Long productId);
+}
@@ -0,0 +1,220 @@
+package com.ecommerce.project.service;
+
+import com.ecommerce.project.config.AsyncConfig;
+import com.ecommerce.project.exceptions.ResourceNotFoundException;
+import com.ecommerce.project.exceptions.TooManyRequestsException;
+import com.ecommerce.project.payload.ImageProcessingStatus;
+import com.ecommerce.project.payload.ImageProcessingStatus.State;
+import com.ecommerce.project.repositories.ProductRepository;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import jakarta.annotation.PostConstruct;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Lazy;
+import org.springframework.core.task.AsyncTaskExecutor;
+import org.springframework.core.Ordered;
+import org.springframework.core.task.TaskRejectedException;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.springframework.web.multipart.MultipartFile;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.List;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.locks.Lock;
+
+@Service
+@Lazy
+public class ImageProcessingServiceImpl implements ImageProcessingService {
+
+    @Autowired
+    private ProductRepository productRepository;
+
+    @Autowired
+    private ProductService productService;
+
+    @Autowired
+    private FileService fileService;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Autowired
+    @Qualifier(AsyncConfig.IMAGE_EXECUTOR)
+    private AsyncTaskExecutor imageProcessingExecutor;
+
+    @Value("${project.image}")
+    private String path;
+
+    @Value("${project.image.staging}")
+    private String stagingPath;
+
+    @Value("${project.image.variant-sizes}")
+    private List<Integer> variantSizes;
+
+    @Value("${project.image.retry-after-seconds:5}")
+    private long retryAfterSeconds;
+
+    @Value("${project.image.workers:2}")
+    private int workers;
+
+    @Value("${project.image.queue-capacity:100}")
+    private int queueCapacity;
+
+    @Value("${project.image.max-statuses:10000}")
+    private long maxStatuses;
+
+    @Value("${project.image.status-ttl:1h}")
+    private Duration statusTtl;
+
+    //mesmo limite do executor (workers + fila), mas cobrado antes de copiar o upload para o staging
+    private Semaphore capacity;
+
+    //ultimo estado por produto; o cliente consulta logo depois do upload, entao os antigos podem sair
+    private Cache<Long, ImageProcessingStatus> statuses;
+
+    @PostConstruct
+    public void init() {
+        capacity = new Semaphore(workers + queueCapacity);
+        statuses = Caffeine.newBuilder()
+                .maximumSize(maxStatuses)
+                .expireAfterWrite(statusTtl)
+                .build();
+    }
+
+    @Override
+    public ImageProcessingStatus submit(Long productId, MultipartFile image) throws IOException {
+        if (!productRepository.existsById(productId)) {
+            throw new ResourceNotFoundException("Product", "productId", productId);
+        }
+        if (!capacity.tryAcquire()) {
+            throw new TooManyRequestsException("Image processing queue is full", retryAfterSeconds);
+        }
+
+        StagedImage stagedImage;
+        try {
+            //o MultipartFile some no fim do request, entao o upload vai para o staging antes de enfileirar
+            stagedImage = fileService.stageImage(stagingPath, image);
+        } catch (IOException | RuntimeException e) {
+            capacity.release();
+            throw e;
+        }
+
+        ImageProcessingStatus status = updateStatus(productId, State.QUEUED, null, null, null);
+        try {
+            imageProcessingExecutor.execute(() -> {
+                try {
+                    process(productId, stagedImage);
+                } finally {
+                    capacity.release();
+                }
+            });
+        } catch (TaskRejectedException e) {
+            capacity.release();
+            Files.deleteIfExists(stagedImage.file());
+            statuses.invalidate(productId);
+            throw new TooManyRequestsException("Image processing queue is full", retryAfterSeconds);
+        }
+        return status;
+    }
+
+    @Override
+    public ImageProcessingStatus getStatus(Long productId) {
+        ImageProcessingStatus status = statuses.getIfPresent(productId);
+        if (status == null) {
+            throw new ResourceNotFoundException("Image upload", "productId", productId);
+        }
+        return status;
+    }
+
+    private void process(Long productId, StagedImage stagedImage) {
+        updateStatus(productId, State.PROCESSING, null, null, null);
+        //o lock do hash impede que uma limpeza apague o arquivo entre o store e o commit do produto
+        HeldLock lock = new HeldLock(fileService.imageLock(stagedImage.hash()));
+        String fileName = null;
+        String variantNames = null;
+        try {
+            fileName = fileService.storeImage(path, stagedImage);
+            List<String> variants = fileService.createVariants(path, fileName, variantSizes);
+            variantNames = String.join(",", variants);
+            String image = fileName;
+            String imageVariants = variantNames;
+            new TransactionTemplate(transactionManager).executeWithoutResult(status -> {
+                //solta o lock assim que a transacao termina, antes do listener que limpa a imagem antiga
+                //(que trava o hash antigo): segurar os dois faz deadlock entre dois uploads que trocam imagens
+                TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                    @Override
+                    public int getOrder() {
+                        return Ordered.HIGHEST_PRECEDENCE;
+                    }
+
+                    @Override
+                    public void afterCompletion(int status) {
+                        lock.release();
+                    }
+                });
+                productService.updateProductImage(productId, image, imageVariants);
+            });
+            updateStatus(productId, State.DONE, fileName, variants, null);
+        } catch (Exception e) {
+            if (fileName != null) {
+                releaseQuietly(fileName, variantNames);
+            }
+            updateStatus(productId, State.FAILED, null, null, e.getMessage());
+        } finally {
+            lock.release();
+            deleteQuietly(stagedImage.file());
+        }
+    }
+
+    //lock que pode ser solto pelo fim da transacao ou pelo finally, o que vier primeiro
+    private static class HeldLock {
+        private final Lock lock;
+        private boolean held;
+
+        HeldLock(Lock lock) {
+            this.lock = lock;
+            lock.lock();
+            held = true;
+        }
+
+        void release() {
+            if (held) {
+                held = false;
+                lock.unlock();
+            }
+        }
+    }
+
+    private void releaseQuietly(String fileName, String variantNames) {
+        try {
+            fileService.deleteImageIfUnreferenced(path, fileName, variantNames);
+        } catch (IOException ignored) {
+            //fica para a proxima vez que a imagem for liberada
+        }
+    }
+
+    private static void deleteQuietly(Path file) {
+        try {
+            Files.deleteIfExists(file);
+        } catch (IOException ignored) {
+            //arquivo temporario, sobra no maximo um
+        }
+    }
+
+    private ImageProcessingStatus updateStatus(Long productId, State state, String image,
+                                               List<String> variants, String message) {
+        ImageProcessingStatus status = new ImageProcessingStatus(productId, state, image, variants, message, Instant.now());
+        statuses.put(productId, status);
+        return status;
+    }
+}
@@ -0,0 +1,235 @@
+package com.ecommerce.project.service;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.LongSupplier;
+import java.util.function.Supplier;
+import java.util.stream.Stream;
+
+//log de estoque ainda nao gravado no banco: cada linha e "productId,onHand" com o valor absoluto,
+//entao reaplicar o log e idempotente; a ultima linha de cada produto vence.
+//group commit: quem muda o estoque so entra na fila e espera; uma thread grava o lote inteiro com um flush so
+@Component
+public class InventoryJournal {
+
+    private static final String PREFIX = "inventory-";
+    private static final String SUFFIX = ".log";
+
+    @Value("${project.inventory.journal:inventory-journal/}")
+    private String journalPath;
+
+    //ReentrantLock em vez de synchronized: com virtual threads um synchronized fazendo I/O prende a carrier thread.
+    //so a thread do journal, rotate e recover pegam o lock; checkout nenhum espera por ele
+    private final Lock lock = new ReentrantLock();
+    private final BlockingQueue<Pending> pending = new LinkedBlockingQueue<>();
+    private volatile boolean running;
+    private Thread writerThread;
+
+    private record Pending(long productId, LongSupplier onHand, CompletableFuture<Void> written) {
+    }
+
+    private Path directory;
+    private long segment;
+    private BufferedWriter writer;
+
+    @PostConstruct
+    public void open() throws IOException {
+        lock.lock();
+        try {
+            directory = Paths.get(journalPath);
+            Files.createDirectories(directory);
+            segment = segments().stream().mapToLong(InventoryJournal::segmentOf).max().orElse(0) + 1;
+            writer = openSegment(segment);
+        } finally {
+            lock.unlock();
+        }
+        running = true;
+        writerThread = new Thread(this::writeLoop, "inventory-journal");
+        writerThread.setDaemon(true);
+        writerThread.start();
+    }
+
+    @PreDestroy
+    public void close() throws IOException {
+        running = false;
+        try {
+            writerThread.join();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        lock.lock();
+        try {
+            //o que chegou depois da ultima volta da thread
+            writeBatch(drain(null));
+            writer.close();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    //volta depois que o valor do produto esta no disco. o valor e lido pela thread do journal na hora de
+    //gravar, nunca antes: como o estoque ja mudou quando o pedido entra na fila, a linha gravada e no minimo
+    //tao nova quanto essa mudanca, e a ordem entre pedidos concorrentes nao importa
+    public void append(long productId, LongSupplier onHand) {
+        Pending request = new Pending(productId, onHand, new CompletableFuture<>());
+        pending.add(request);
+        try {
+            request.written().join();
+        } catch (CompletionException e) {
+            throw e.getCause() instanceof RuntimeException cause ? cause : e;
+        }
+    }
+
+    private void writeLoop() {
+        while (running) {
+            Pending first;
+            try {
+                first = pending.poll(100, TimeUnit.MILLISECONDS);
+            } catch (InterruptedException e) {
+                return;
+            }
+            if (first == null) {
+                continue;
+            }
+            List<Pending> batch = drain(first);
+            lock.lock();
+            try {
+                writeBatch(batch);
+            } finally {
+                lock.unlock();
+            }
+        }
+    }
+
+    private List<Pending> drain(Pending first) {
+        List<Pending> batch = new ArrayList<>();
+        if (first != null) {
+            batch.add(first);
+        }
+        pending.drainTo(batch);
+        return batch;
+    }
+
+    private void writeBatch(List<Pending> batch) {
+        if (batch.isEmpty()) {
+            return;
+        }
+        //uma linha por produto do lote, com o valor atual
+        Map<Long, LongSupplier> latest = new LinkedHashMap<>();
+        batch.forEach(request -> latest.put(request.productId(), request.onHand()));
+        try {
+            for (Map.Entry<Long, LongSupplier> entry : latest.entrySet()) {
+                writer.write(entry.getKey() + "," + entry.getValue().getAsLong());
+                writer.newLine();
+            }
+            writer.flush();
+        } catch (IOException e) {
+            UncheckedIOException failure = new UncheckedIOException(e);
+            batch.forEach(request -> request.written().completeExceptionally(failure));
+            return;
+        }
+        batch.forEach(request -> request.written().complete(null));
+    }
+
+    //fecha o segmento atual e abre outro; o snapshot roda sob o lock, sem nenhum append no meio,
+    //entao tudo o que esta nos segmentos antigos ja esta refletido nele
+    public <T> T rotate(Supplier<T> snapshot) {
+        lock.lock();
+        try {
+            try {
+                writer.close();
+                segment++;
+                writer = openSegment(segment);
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+            return snapshot.get();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    //segmentos antigos que ja foram gravados no banco
+    public void deleteFlushedSegments() throws IOException {
+        lock.lock();
+        try {
+            for (Path file : segments()) {
+                if (segmentOf(file) < segment) {
+                    Files.deleteIfExists(file);
+                }
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    //valores que sobraram de uma execucao anterior (queda antes do flush)
+    public Map<Long, Long> recover() throws IOException {
+        lock.lock();
+        try {
+            Map<Long, Long> onHand = new LinkedHashMap<>();
+            for (Path file : segments()) {
+                if (segmentOf(file) >= segment) {
+                    continue;
+                }
+                for (String line : Files.readAllLines(file, StandardCharsets.UTF_8)) {
+                    String[] parts = line.split(",");
+                    //a ultima linha pode estar cortada se o processo caiu no meio da escrita
+                    if (parts.length == 2 && !parts[0].isEmpty() && !parts[1].isEmpty()) {
+                        try {
+                            onHand.put(Long.parseLong(parts[0]), Long.parseLong(parts[1]));
+                        } catch (NumberFormatException ignored) {
+                            //linha incompleta
+                        }
+                    }
+                }
+            }
+            return onHand;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private BufferedWriter openSegment(long number) throws IOException {
+        return Files.newBufferedWriter(directory.resolve(PREFIX + number + SUFFIX), StandardCharsets.UTF_8,
+                StandardOpenOption.CREATE, StandardOpenOption.APPEND);
+    }
+
+    private List<Path> segments() throws IOException {
+        try (Stream<Path> files = Files.list(directory)) {
+            List<Path> segments = new ArrayList<>(files
+                    .filter(file -> file.getFileName().toString().matches(PREFIX + "\\d+" + SUFFIX))
+                    .toList());
+            segments.sort(Comparator.comparingLong(InventoryJournal::segmentOf));
+            return segments;
+        }
+    }
+
+    private static long segmentOf(Path file) {
+        String name = file.getFileName().toString();
+        return Long.parseLong(name.substring(PREFIX.length(), name.length() - SUFFIX.length()));
+    }
+}
@@ -0,0 +1,22 @@
+package com.ecommerce.project.service;
+
+import com.ecommerce.project.payload.InventoryDTO;
+import com.ecommerce.project.payload.ReservationDTO;
+
+public interface InventoryService {
+    ReservationDTO reserve(Long productId, Integer quantity);
+
+    ReservationDTO commit(String reservationId);
+
+    ReservationDTO release(String reservationId);
+
+    InventoryDTO getStock(Long productId);
+
+    void replaceStock(Long productId, Integer quantity);
+
+    void evict(Long productId);
+
+    void flush();
+
+    void expireReservations();
+}
@@ -0,0 +1,235 @@
+package com.ecommerce.project.service;
+
+import com.ecommerce.project.event.CatalogChangedEvent;
+import com.ecommerce.project.exceptions.APIException;
+import com.ecommerce.project.exceptions.ResourceNotFoundException;
+import com.ecommerce.project.model.Product;
+import com.ecommerce.project.payload.InventoryDTO;
+import com.ecommerce.project.payload.ReservationDTO;
+import com.ecommerce.project.repositories.ProductRepository;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.dao.DataAccessException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.OffsetDateTime;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReentrantLock;
+
+//estoque em memoria com write-behind: reserve/commit/release so mexem nos contadores,
+//o Product.quantity e gravado em lote pelo flush
+@Service
+public class InventoryServiceImpl implements InventoryService {
+
+    private static final String UPDATE_QUANTITY = "UPDATE product SET quantity = ?, last_modified = ? WHERE product_id = ?";
+
+    @Autowired
+    private ProductRepository productRepository;
+
+    @Autowired
+    private InventoryJournal journal;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private ApplicationEventPublisher eventPublisher;
+
+    @Value("${project.inventory.reservation-ttl:10m}")
+    private Duration reservationTtl;
+
+    @Value("${project.inventory.flush-batch-size:500}")
+    private int flushBatchSize;
+
+    private final Map<Long, StockCounter> counters = new ConcurrentHashMap<>();
+    private final Map<String, Reservation> reservations = new ConcurrentHashMap<>();
+    private final Set<Long> dirty = ConcurrentHashMap.newKeySet();
+    private final Lock flushLock = new ReentrantLock();
+
+    private record Reservation(String reservationId, Long productId, int quantity, Instant expiresAt) {
+    }
+
+    //reaplica o que ficou no journal se a aplicacao caiu antes do ultimo flush
+    @PostConstruct
+    public void recover() throws IOException {
+        Map<Long, Long> onHand = journal.recover();
+        if (!onHand.isEmpty()) {
+            writeQuantities(onHand);
+        }
+        journal.deleteFlushedSegments();
+    }
+
+    @Override
+    public ReservationDTO reserve(Long productId, Integer quantity) {
+        if (quantity == null || quantity < 1) {
+            throw new APIException("Reservation quantity must be greater than zero");
+        }
+        StockCounter counter = counter(productId);
+        if (!counter.tryReserve(quantity)) {
+            throw new APIException("Insufficient stock for productId: " + productId);
+        }
+        Reservation reservation = new Reservation(UUID.randomUUID().toString(), productId, quantity,
+                Instant.now().plus(reservationTtl));
+        reservations.put(reservation.reservationId(), reservation);
+        return toDTO(reservation);
+    }
+
+    @Override
+    public ReservationDTO commit(String reservationId) {
+        //o remove e atomico: commit, release e o sweeper nunca finalizam a mesma reserva duas vezes
+        Reservation reservation = take(reservationId);
+        StockCounter counter = counters.get(reservation.productId());
+        if (counter == null) {
+            throw new ResourceNotFoundException("Product", "productId", reservation.productId());
+        }
+        //so o CAS no contador; dirty antes do journal: um flush que rotacione no meio ja ve o produto
+        counter.commit(reservation.quantity());
+        dirty.add(reservation.productId());
+        journal.append(reservation.productId(), counter::onHand);
+        return toDTO(reservation);
+    }
+
+    @Override
+    public ReservationDTO release(String reservationId) {
+        Reservation reservation = take(reservationId);
+        releaseCounter(reservation);
+        return toDTO(reservation);
+    }
+
+    @Override
+    public InventoryDTO getStock(Long productId) {
+        StockCounter counter = counter(productId);
+        long onHand = counter.onHand();
+        long available = counter.available();
+        return new InventoryDTO(productId, onHand, onHand - available, available);
+    }
+
+    @Override
+    public void replaceStock(Long productId, Integer quantity) {
+        StockCounter counter = counters.get(productId);
+        if (counter == null) {
+            //ainda nao carregado: a proxima leitura pega o valor novo do banco
+            return;
+        }
+        counter.replace(quantity == null ? 0 : quantity);
+        //um flush em andamento pode ter lido o valor antigo; marca de novo para gravar o novo por cima
+        dirty.add(productId);
+        journal.append(productId, counter::onHand);
+    }
+
+    @Override
+    public void evict(Long productId) {
+        counters.remove(productId);
+        dirty.remove(productId);
+        reservations.values().removeIf(reservation -> reservation.productId().equals(productId));
+    }
+
+    @Override
+    @Scheduled(fixedDelayString = "${project.inventory.flush-interval:1s}")
+    @PreDestroy
+    public void flush() {
+        flushLock.lock();
+        try {
+            Map<Long, Long> snapshot = journal.rotate(() -> {
+                Map<Long, Long> values = new HashMap<>();
+                for (Long productId : dirty) {
+                    dirty.remove(productId);
+                    StockCounter counter = counters.get(productId);
+                    if (counter != null) {
+                        values.put(productId, counter.onHand());
+                    }
+                }
+                return values;
+            });
+            if (!snapshot.isEmpty()) {
+                try {
+                    writeQuantities(snapshot);
+                } catch (DataAccessException e) {
+                    //os segmentos antigos ficam no disco; tenta de novo no proximo ciclo
+                    dirty.addAll(snapshot.keySet());
+                    return;
+                }
+                //a quantidade aparece nas listagens: invalida cache e versoes das categorias afetadas
+                snapshot.keySet().stream()
+                        .map(counters::get)
+                        .filter(Objects::nonNull)
+                        .map(StockCounter::categoryId)
+                        .distinct()
+                        .forEach(categoryId -> eventPublisher.publishEvent(CatalogChangedEvent.products(categoryId)));
+            }
+            journal.deleteFlushedSegments();
+        } catch (IOException e) {
+            throw new APIException("Could not clean up inventory journal: " + e.getMessage());
+        } finally {
+            flushLock.unlock();
+        }
+    }
+
+    @Override
+    @Scheduled(fixedDelayString = "${project.inventory.sweep-interval:5s}")
+    public void expireReservations() {
+        Instant now = Instant.now();
+        for (Reservation reservation : reservations.values()) {
+            if (reservation.expiresAt().isBefore(now)
+                    && reservations.remove(reservation.reservationId(), reservation)) {
+                releaseCounter(reservation);
+            }
+        }
+    }
+
+    private StockCounter counter(Long productId) {
+        return counters.computeIfAbsent(productId, id -> {
+            Product product = productRepository.findById(id)
+                    .orElseThrow(() -> new ResourceNotFoundException("Product", "productId", id));
+            return new StockCounter(product.getCategory().getCategoryId(),
+                    product.getQuantity() == null ? 0 : product.getQuantity());
+        });
+    }
+
+    private Reservation take(String reservationId) {
+        Reservation reservation = reservations.remove(reservationId);
+        if (reservation == null) {
+            throw new ResourceNotFoundException("Reservation", "reservationId", reservationId);
+        }
+        return reservation;
+    }
+
+    private void releaseCounter(Reservation reservation) {
+        StockCounter counter = counters.get(reservation.productId());
+        if (counter != null) {
+            counter.release(reservation.quantity());
+        }
+    }
+
+    private void writeQuantities(Map<Long, Long> onHand) {
+        List<Object[]> rows = new ArrayList<>(onHand.size());
+        //SQL direto nao passa pelo @UpdateTimestamp; sem last_modified o ETag da listagem nao mudaria
+        OffsetDateTime now = OffsetDateTime.now(ZoneOffset.UTC);
+        onHand.forEach((productId, quantity) -> rows.add(new Object[]{quantity, now, productId}));
+        for (int i = 0; i < rows.size(); i += flushBatchSize) {
+            jdbcTemplate.batchUpdate(UPDATE_QUANTITY, rows.subList(i, Math.min(i + flushBatchSize, rows.size())));
+        }
+    }
+
+    private static ReservationDTO toDTO(Reservation reservation) {
+        return new ReservationDTO(reservation.reservationId(), reservation.productId(), reservation.quantity(),
+                reservation.expiresAt());
+    }
+}
@@ -0,0 +1,10 @@
+package com.ecommerce.project.service;
+
+import com.ecommerce.project.payload.ProductBatchRequest;
+import com.ecommerce.project.payload.ProductBatchResponse;
+
+public interface ProductBatchService {
+    ProductBatchResponse updateProducts(ProductBatchRequest request);
+
+    ProductBatchResponse deleteProducts(ProductBatchRequest request);
+}
@@ -0,0 +1,219 @@
+package com.ecommerce.project.service;
+
+import com.ecommerce.project.config.MetricsConfig;
+import com.ecommerce.project.event.CatalogChangedEvent;
+import com.ecommerce.project.event.ImageReleasedEvent;
+import com.ecommerce.project.exceptions.APIException;
+import com.ecommerce.project.exceptions.ResourceNotFoundException;
+import com.ecommerce.project.model.CatalogEventType;
+import com.ecommerce.project.payload.ProductBatchRequest;
+import com.ecommerce.project.payload.ProductBatchResponse;
+import com.ecommerce.project.repositories.CategoryRepository;
+import com.ecommerce.project.repositories.ProductRepository;
+import io.micrometer.core.annotation.Timed;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.context.annotation.Lazy;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+
+//alteracoes em massa (promocoes): um UPDATE/DELETE por bloco de ids numa transacao so, em vez de
+//find + map + save por produto; o efeito em inventario, indice e cache acontece depois do commit
+@Service
+@Lazy
+@Timed(MetricsConfig.SERVICE_TIMER)
+public class ProductBatchServiceImpl implements ProductBatchService {
+
+    @Autowired
+    private ProductRepository productRepository;
+
+    @Autowired
+    private CategoryRepository categoryRepository;
+
+    @Autowired
+    private InventoryService inventoryService;
+
+    @Autowired
+    private ApplicationEventPublisher eventPublisher;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Autowired
+    private CatalogEventService catalogEventService;
+
+    //limite de parametros no IN de cada comando
+    @Value("${project.batch.chunk-size:1000}")
+    private int chunkSize;
+
+    @Value("${project.batch.max-product-ids:10000}")
+    private int maxProductIds;
+
+    @Override
+    public ProductBatchResponse updateProducts(ProductBatchRequest request) {
+        if (request.getPrice() == null && request.getDiscount() == null && request.getQuantity() == null) {
+            throw new APIException("Nothing to update: send price, discount and/or quantity");
+        }
+        if (request.getPrice() != null && request.getPrice() < 0) {
+            throw new APIException("price must not be negative");
+        }
+        if (request.getDiscount() != null && (request.getDiscount() < 0 || request.getDiscount() > 100)) {
+            throw new APIException("discount must be between 0 and 100");
+        }
+        if (request.getQuantity() != null && request.getQuantity() < 0) {
+            throw new APIException("quantity must not be negative");
+        }
+        boolean pricing = request.getPrice() != null || request.getDiscount() != null;
+
+        long start = System.nanoTime();
+        Instant now = Instant.now();
+        TransactionTemplate transactionTemplate = new TransactionTemplate(transactionManager);
+        BatchResult result = transactionTemplate.execute(status -> {
+            BatchResult batch = load(request);
+            for (List<Long> chunk : chunks(batch.productIds())) {
+                int updated = 0;
+                if (pricing) {
+                    updated = productRepository.updatePricing(chunk, request.getPrice(), request.getDiscount(), now);
+                }
+                if (request.getQuantity() != null) {
+                    updated = productRepository.updateQuantity(chunk, request.getQuantity(), now);
+                }
+                batch.affected += updated;
+            }
+            //so os campos do lote; specialPrice e recalculado em cada produto a partir de price e discount
+            Map<String, Object> changed = new LinkedHashMap<>();
+            if (request.getPrice() != null) {
+                changed.put("price", request.getPrice());
+            }
+            if (request.getDiscount() != null) {
+                changed.put("discount", request.getDiscount());
+            }
+            if (request.getQuantity() != null) {
+                changed.put("quantity", request.getQuantity());
+            }
+            catalogEventService.appendAll(batch.rows.stream()
+                    .map(row -> new CatalogEventService.Change(CatalogEventType.PRODUCT_UPDATED, row.getProductId(),
+                            row.getCategoryId(), changed))
+                    .toList());
+            return batch;
+        });
+
+        if (request.getQuantity() != null) {
+            //contadores ja carregados passam a valer a quantidade nova
+            result.productIds().forEach(productId -> inventoryService.replaceStock(productId, request.getQuantity()));
+        }
+        result.categoryIds().forEach(categoryId -> eventPublisher.publishEvent(CatalogChangedEvent.products(categoryId)));
+        return toResponse(result, start);
+    }
+
+    @Override
+    public ProductBatchResponse deleteProducts(ProductBatchRequest request) {
+        if (request.getPrice() != null || request.getDiscount() != null || request.getQuantity() != null) {
+            throw new APIException("A batch delete only takes productIds or categoryId");
+        }
+
+        long start = System.nanoTime();
+        TransactionTemplate transactionTemplate = new TransactionTemplate(transactionManager);
+        BatchResult result = transactionTemplate.execute(status -> {
+            BatchResult batch = load(request);
+            for (List<Long> chunk : chunks(batch.productIds())) {
+                productRepository.deleteAllByIdInBatch(chunk);
+                batch.affected += chunk.size();
+            }
+            catalogEventService.appendAll(batch.rows.stream()
+                    .map(row -> new CatalogEventService.Change(CatalogEventType.PRODUCT_DELETED, row.getProductId(),
+                            row.getCategoryId(), null))
+                    .toList());
+            return batch;
+        });
+
+        for (ProductRepository.BatchRow row : result.rows) {
+            inventoryService.evict(row.getProductId());
+            eventPublisher.publishEvent(new ImageReleasedEvent(row.getImage(), row.getImageVariants()));
+        }
+        result.categoryIds().forEach(categoryId -> eventPublisher.publishEvent(CatalogChangedEvent.products(categoryId)));
+        return toResponse(result, start);
+    }
+
+    //resolve o alvo do lote com uma consulta por bloco, sem carregar entidades
+    private BatchResult load(ProductBatchRequest request) {
+        boolean byIds = request.getProductIds() != null && !request.getProductIds().isEmpty();
+        if (byIds == (request.getCategoryId() != null)) {
+            throw new APIException("Send either productIds or categoryId");
+        }
+        if (!byIds) {
+            Long categoryId = request.getCategoryId();
+            if (!categoryRepository.existsById(categoryId)) {
+                throw new ResourceNotFoundException("Category", "categoryId", categoryId);
+            }
+            //um a mais que o teto so para saber se passou
+            List<ProductRepository.BatchRow> rows = productRepository.findBatchRowsByCategoryId(categoryId,
+                    PageRequest.of(0, maxProductIds + 1));
+            if (rows.size() > maxProductIds) {
+                throw new APIException("A batch can have at most " + maxProductIds
+                        + " products: category " + categoryId + " has more, send productIds instead");
+            }
+            return new BatchResult(rows, List.of());
+        }
+
+        Set<Long> requested = new LinkedHashSet<>(request.getProductIds());
+        requested.remove(null);
+        if (requested.size() > maxProductIds) {
+            throw new APIException("A batch can have at most " + maxProductIds + " productIds");
+        }
+        List<ProductRepository.BatchRow> rows = new ArrayList<>(requested.size());
+        for (List<Long> chunk : chunks(new ArrayList<>(requested))) {
+            rows.addAll(productRepository.findBatchRowsByProductIdIn(chunk));
+        }
+        rows.forEach(row -> requested.remove(row.getProductId()));
+        return new BatchResult(rows, new ArrayList<>(requested));
+    }
+
+    private List<List<Long>> chunks(List<Long> ids) {
+        List<List<Long>> chunks = new ArrayList<>();
+        for (int i = 0; i < ids.size(); i += chunkSize) {
+            chunks.add(ids.subList(i, Math.min(i + chunkSize, ids.size())));
+        }
+        return chunks;
+    }
+
+    private static ProductBatchResponse toResponse(BatchResult result, long start) {
+        ProductBatchResponse response = new ProductBatchResponse();
+        response.setMatchedProducts(result.rows.size());
+        response.setAffectedProducts(result.affected);
+        response.setNotFoundIds(result.notFoundIds);
+        response.setElapsedMillis((System.nanoTime() - start) / 1_000_000);
+        return response;
+    }
+
+    private static class BatchResult {
+        private final List<ProductRepository.BatchRow> rows;
+        private final List<Long> notFoundIds;
+        private long affected;
+
+        BatchResult(List<ProductRepository.BatchRow> rows, List<Long> notFoundIds) {
+            this.rows = rows;
+            this.notFoundIds = notFoundIds;
+        }
+
+        List<Long> productIds() {
+            return rows.stream().map(ProductRepository.BatchRow::getProductId).toList();
+        }
+
+        List<Long> categoryIds() {
+            return rows.stream().map(ProductRepository.BatchRow::getCategoryId).filter(Objects::nonNull).distinct().toList();
+        }
+    }
+}
@@ -0,0 +1,41 @@
+package com.ecommerce.project.service;
+
+import com.ecommerce.project.exceptions.APIException;
+import com.ecommerce.project.model.Product;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+
+//posicao keyset do parametro "after"; o token carrega a ordenacao com que foi gerado
+public record ProductCursor(String sortBy, boolean ascending, double price, long productId) {
+
+    public static final String SORT_BY_ID = "productId";
+    public static final String SORT_BY_PRICE = "price";
+
+    public static boolean supports(String sortBy) {
+        return SORT_BY_ID.equals(sortBy) || SORT_BY_PRICE.equals(sortBy);
+    }
+
+    public static ProductCursor of(Product product, String sortBy, boolean ascending) {
+        return new ProductCursor(sortBy, ascending, product.getPrice(), product.getProductId());
+    }
+
+    public String encode() {
+        String raw = sortBy + ":" + (ascending ? "asc" : "desc") + ":" + price + ":" + productId;
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+    }
+
+    public static ProductCursor decode(String token) {
+        try {
+            String raw = new String(Base64.getUrlDecoder().decode(token), StandardCharsets.UTF_8);
+            String[] parts = raw.split(":");
+            if (parts.length != 4 || !supports(parts[0])) {
+                throw new APIException("Invalid cursor " + token);
+            }
+            return new ProductCursor(parts[0], parts[1].equalsIgnoreCase("asc"),
+                    Double.parseDouble(parts[2]), Long.parseLong(parts[3]));
+        } catch (IllegalArgumentException e) {
+            throw new APIException("Invalid cursor " + token);
+        }
+    }
+}
@@ -0,0 +1,10 @@
+package com.ecommerce.project.service;
+
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+
+public interface ProductExportService {
+    String FORMAT_CSV = "csv";
+    String FORMAT_NDJSON = "ndjson";
+
+    StreamingResponseBody exportProducts(String format, Long categoryId, boolean gzip);
+}
@@ -0,0 +1,118 @@
+package com.ecommerce.project.service;
+
+import com.ecommerce.project.exceptions.APIException;
+import com.ecommerce.project.exceptions.ResourceNotFoundException;
+import com.ecommerce.project.mapper.ProductMapper;
+import com.ecommerce.project.model.Product;
+import com.ecommerce.project.payload.ProductDTO;
+import com.ecommerce.project.repositories.CategoryRepository;
+import com.ecommerce.project.repositories.ProductRepository;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.annotation.Lazy;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.util.stream.Stream;
+import java.util.zip.GZIPOutputStream;
+
+@Service
+@Lazy
+public class ProductExportServiceImpl implements ProductExportService {
+
+    private static final int BUFFER_SIZE = 64 * 1024;
+
+    @Autowired
+    private ProductRepository productRepository;
+
+    @Autowired
+    private CategoryRepository categoryRepository;
+
+    @Autowired
+    private ProductMapper productMapper;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    @Override
+    public StreamingResponseBody exportProducts(String format, Long categoryId, boolean gzip) {
+        //valida antes de comecar a escrever, enquanto ainda da para responder 400/404
+        if (!FORMAT_CSV.equals(format) && !FORMAT_NDJSON.equals(format)) {
+            throw new APIException("Unsupported export format " + format);
+        }
+        if (categoryId != null && !categoryRepository.existsById(categoryId)) {
+            throw new ResourceNotFoundException("Category", "categoryId", categoryId);
+        }
+
+        TransactionTemplate transactionTemplate = new TransactionTemplate(transactionManager);
+        transactionTemplate.setReadOnly(true);
+        return outputStream -> {
+            OutputStream target = gzip ? new GZIPOutputStream(outputStream, BUFFER_SIZE) : outputStream;
+            Writer writer = new BufferedWriter(new OutputStreamWriter(target, StandardCharsets.UTF_8), BUFFER_SIZE);
+            transactionTemplate.executeWithoutResult(status -> write(writer, format, categoryId));
+            writer.flush();
+            if (target instanceof GZIPOutputStream gzipOutputStream) {
+                gzipOutputStream.finish();
+            }
+        };
+    }
+
+    private void write(Writer writer, String format, Long categoryId) {
+        boolean csv = FORMAT_CSV.equals(format);
+        try (Stream<Product> products = categoryId == null
+                ? productRepository.streamAll()
+                : productRepository.streamByCategoryId(categoryId)) {
+            if (csv) {
+                writer.write("productId,productName,description,image,quantity,price,discount,specialPrice\n");
+            }
+            products.forEach(product -> {
+                ProductDTO productDTO = productMapper.toDTO(product);
+                //solta a entidade ja escrita para o persistence context nao crescer com o catalogo
+                entityManager.detach(product);
+                try {
+                    writer.write(csv ? toCsv(productDTO) : objectMapper.writeValueAsString(productDTO));
+                    writer.write('\n');
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            });
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private static String toCsv(ProductDTO productDTO) {
+        return productDTO.getProductId() + "," +
+                csvField(productDTO.getProductName()) + "," +
+                csvField(productDTO.getDescription()) + "," +
+                csvField(productDTO.getImage()) + "," +
+                (productDTO.getQuantity() == null ? "" : productDTO.getQuantity()) + "," +
+                productDTO.getPrice() + "," +
+                productDTO.getDiscount() + "," +
+                productDTO.getSpecialPrice();
+    }
+
+    private static String csvField(String value) {
+        if (value == null) {
+            return "";
+        }
+        return "\"" + value.replace("\"", "\"\"") + "\"";
+    }
+}
@@ -0,0 +1,318 @@
+package com.ecommerce.project.service;
+
+import com.ecommerce.project.event.CatalogChangedEvent;
+import com.ecommerce.project.exceptions.APIException;
+import com.ecommerce.project.exceptions.ResourceNotFoundException;
+import com.ecommerce.project.mapper.ProductMapper;
+import com.ecommerce.project.model.CatalogEventType;
+import com.ecommerce.project.model.Category;
+import com.ecommerce.project.model.Product;
+import com.ecommerce.project.payload.ImportRowError;
+import com.ecommerce.project.payload.ProductDTO;
+import com.ecommerce.project.payload.ProductImportResponse;
+import com.ecommerce.project.repositories.CategoryRepository;
+import com.ecommerce.project.repositories.ProductRepository;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import jakarta.validation.ConstraintViolation;
+import jakarta.validation.Validator;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.context.annotation.Lazy;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+@Service
+@Lazy
+public class ProductImportServiceImpl implements ProductImportService {
+
+    private static final int MAX_REPORTED_ERRORS = 1000;
+
+    @Autowired
+    private CategoryRepository categoryRepository;
+
+    @Autowired
+    private ProductRepository productRepository;
+
+    @Autowired
+    private ProductMapper productMapper;
+
+    @Autowired
+    private ApplicationEventPublisher eventPublisher;
+
+    @Autowired
+    private Validator validator;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Autowired
+    private CatalogEventService catalogEventService;
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    @Override
+    public ProductImportResponse importProducts(Long categoryId, InputStream input, String format, int batchSize) throws IOException {
+        Category category = categoryRepository.findById(categoryId)
+                .orElseThrow(() -> new ResourceNotFoundException("Category", "categoryId", categoryId));
+        if (batchSize < 1) {
+            throw new APIException("batchSize must be greater than zero");
+        }
+        boolean csv = FORMAT_CSV.equals(format);
+
+        long start = System.nanoTime();
+        ImportRun run = new ImportRun(category, batchSize);
+        //le linha a linha, nunca guarda o arquivo inteiro em memoria
+        BufferedReader reader = new BufferedReader(new InputStreamReader(input, StandardCharsets.UTF_8));
+        Map<String, Integer> columns = null;
+        long lineNumber = 0;
+        String line;
+        while ((line = reader.readLine()) != null) {
+            lineNumber++;
+            if (line.isBlank()) {
+                continue;
+            }
+            if (csv && columns == null) {
+                columns = parseHeader(line);
+                continue;
+            }
+            run.totalRows++;
+            ProductDTO productDTO;
+            try {
+                productDTO = csv ? parseCsvRow(line, columns) : objectMapper.readValue(line, ProductDTO.class);
+            } catch (IllegalArgumentException | JsonProcessingException e) {
+                run.fail(lineNumber, "Could not parse row: " + e.getMessage());
+                continue;
+            }
+            run.add(lineNumber, productDTO);
+        }
+        run.flush();
+
+        if (run.importedRows > 0) {
+            eventPublisher.publishEvent(CatalogChangedEvent.products(categoryId));
+        }
+
+        long elapsedNanos = System.nanoTime() - start;
+        double seconds = elapsedNanos / 1_000_000_000.0;
+        ProductImportResponse response = new ProductImportResponse();
+        response.setTotalRows(run.totalRows);
+        response.setImportedRows(run.importedRows);
+        response.setFailedRows(run.failedRows);
+        response.setErrors(run.errors);
+        response.setErrorsTruncated(run.failedRows > run.errors.size());
+        response.setElapsedMillis(elapsedNanos / 1_000_000);
+        response.setRowsPerSecond(seconds > 0 ? run.importedRows / seconds : 0);
+        return response;
+    }
+
+    private Map<String, Integer> parseHeader(String line) {
+        Map<String, Integer> columns = new HashMap<>();
+        List<String> names = splitCsv(line);
+        for (int i = 0; i < names.size(); i++) {
+            columns.put(names.get(i).trim(), i);
+        }
+        if (!columns.containsKey("productName")) {
+            throw new APIException("CSV header must contain a productName column");
+        }
+        return columns;
+    }
+
+    private ProductDTO parseCsvRow(String line, Map<String, Integer> columns) {
+        List<String> fields = splitCsv(line);
+        ProductDTO productDTO = new ProductDTO();
+        productDTO.setProductName(field(fields, columns, "productName"));
+        productDTO.setDescription(field(fields, columns, "description"));
+        String quantity = field(fields, columns, "quantity");
+        if (quantity != null) {
+            productDTO.setQuantity(Integer.valueOf(quantity));
+        }
+        String price = field(fields, columns, "price");
+        if (price != null) {
+            productDTO.setPrice(Double.parseDouble(price));
+        }
+        String discount = field(fields, columns, "discount");
+        if (discount != null) {
+            productDTO.setDiscount(Double.parseDouble(discount));
+        }
+        String specialPrice = field(fields, columns, "specialPrice");
+        if (specialPrice != null) {
+            productDTO.setSpecialPrice(Double.parseDouble(specialPrice));
+        }
+        return productDTO;
+    }
+
+    private static String field(List<String> fields, Map<String, Integer> columns, String name) {
+        Integer index = columns.get(name);
+        if (index == null || index >= fields.size() || fields.get(index).isBlank()) {
+            return null;
+        }
+        return fields.get(index).trim();
+    }
+
+    //CSV simples: aspas duplas com "" como escape; campos com quebra de linha nao sao suportados
+    static List<String> splitCsv(String line) {
+        List<String> fields = new ArrayList<>();
+        StringBuilder current = new StringBuilder();
+        boolean quoted = false;
+        for (int i = 0; i < line.length(); i++) {
+            char c = line.charAt(i);
+            if (quoted) {
+                if (c == '"' && i + 1 < line.length() && line.charAt(i + 1) == '"') {
+                    current.append('"');
+                    i++;
+                } else if (c == '"') {
+                    quoted = false;
+                } else {
+                    current.append(c);
+                }
+            } else if (c == '"') {
+                quoted = true;
+            } else if (c == ',') {
+                fields.add(current.toString());
+                current.setLength(0);
+            } else {
+                current.append(c);
+            }
+        }
+        fields.add(current.toString());
+        return fields;
+    }
+
+    private record PendingRow(long line, Product product) {
+    }
+
+    private class ImportRun {
+        private final Category category;
+        private final int batchSize;
+        private final TransactionTemplate transactionTemplate = new TransactionTemplate(transactionManager);
+        private final List<PendingRow> pending = new ArrayList<>();
+        //nomes ja aceitos neste import, para pegar duplicados dentro do proprio arquivo
+        private final Set<String> acceptedNames = new HashSet<>();
+        private final List<ImportRowError> errors = new ArrayList<>();
+        private long totalRows;
+        private long importedRows;
+        private long failedRows;
+
+        ImportRun(Category category, int batchSize) {
+            this.category = category;
+            this.batchSize = batchSize;
+        }
+
+        void fail(long line, String message) {
+            failedRows++;
+            if (errors.size() < MAX_REPORTED_ERRORS) {
+                errors.add(new ImportRowError(line, message));
+            }
+        }
+
+        void add(long line, ProductDTO productDTO) {
+            Product product = productMapper.toEntity(productDTO);
+            product.setProductId(null);
+            product.setImage("default");
+            product.setImageVariants(null);
+            product.setCategory(category);
+            double specialPrice = product.getSpecialPrice() -
+                    ((product.getDiscount() * 0.01) * product.getPrice());
+            product.setSpecialPrice(specialPrice);
+
+            Set<ConstraintViolation<Product>> violations = validator.validate(product);
+            if (!violations.isEmpty()) {
+                fail(line, violations.stream()
+                        .map(violation -> violation.getPropertyPath() + ": " + violation.getMessage())
+                        .sorted()
+                        .collect(Collectors.joining("; ")));
+                return;
+            }
+            if (!acceptedNames.add(product.getProductName())) {
+                fail(line, "PRODUCT ALREADY EXISTS");
+                return;
+            }
+            pending.add(new PendingRow(line, product));
+            if (pending.size() >= batchSize) {
+                flush();
+            }
+        }
+
+        void flush() {
+            if (pending.isEmpty()) {
+                return;
+            }
+            Set<String> names = pending.stream().map(row -> row.product().getProductName()).collect(Collectors.toSet());
+            Set<String> existing = new HashSet<>(
+                    productRepository.findProductNamesByCategoryIdAndProductNameIn(category.getCategoryId(), names));
+            List<PendingRow> rows = new ArrayList<>(pending.size());
+            for (PendingRow row : pending) {
+                if (existing.contains(row.product().getProductName())) {
+                    fail(row.line(), "PRODUCT ALREADY EXISTS");
+                } else {
+                    rows.add(row);
+                }
+            }
+            pending.clear();
+
+            try {
+                transactionTemplate.executeWithoutResult(status -> {
+                    rows.forEach(row -> entityManager.persist(row.product()));
+                    //flush pelo repository: o duplicado vira DataIntegrityViolationException (o flush do
+                    //EntityManager lancaria a exception do Hibernate sem traducao e o fallback abaixo nao rodaria)
+                    productRepository.flush();
+                    appendCreated(rows);
+                });
+                accept(rows);
+            } catch (DataIntegrityViolationException e) {
+                //alguem inseriu um dos nomes no meio tempo: refaz linha a linha para achar qual
+                entityManager.clear();
+                rows.forEach(this::persistSingle);
+            } finally {
+                //mantem o persistence context pequeno entre os lotes
+                entityManager.clear();
+            }
+        }
+
+        private void persistSingle(PendingRow row) {
+            row.product().setProductId(null);
+            try {
+                transactionTemplate.executeWithoutResult(status -> {
+                    entityManager.persist(row.product());
+                    appendCreated(List.of(row));
+                });
+                accept(List.of(row));
+            } catch (DataIntegrityViolationException e) {
+                fail(row.line(), "PRODUCT ALREADY EXISTS");
+            }
+        }
+
+        private void appendCreated(List<PendingRow> rows) {
+            catalogEventService.appendAll(rows.stream()
+                    .map(row -> new CatalogEventService.Change(CatalogEventType.PRODUCT_CREATED,
+                            row.product().getProductId(), category.getCategoryId(),
+                            productMapper.toDTO(row.product())))
+                    .toList());
+        }
+
+        private void accept(List<PendingRow> rows) {
+            importedRows += rows.size();
+        }
+    }
+}
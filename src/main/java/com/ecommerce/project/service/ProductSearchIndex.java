@@ -0,0 +1,283 @@
+package com.ecommerce.project.service;
+
+import com.ecommerce.project.model.CatalogEventType;
+import com.ecommerce.project.model.Product;
+import com.ecommerce.project.payload.CatalogEventDTO;
+import com.ecommerce.project.repositories.ProductRepository;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.Limit;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+//indice invertido de trigramas sobre productName e description, mantido em memoria.
+//depois do rebuild acompanha o log de eventos do catalogo, inclusive as escritas de outras instancias
+@Component
+public class ProductSearchIndex {
+
+    private static final int GRAM = 3;
+    private static final int REBUILD_BATCH = 1000;
+
+    @Autowired
+    private ProductRepository productRepository;
+
+    @Autowired
+    private CatalogEventService catalogEventService;
+
+    @Value("${project.search.index.enabled:false}")
+    private boolean enabled;
+
+    private final Map<Long, PostingList> postings = new HashMap<>();
+    private final Map<Long, IndexedText> documents = new HashMap<>();
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+    private CatalogEventService.Subscription subscription;
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void rebuild() {
+        if (!enabled) {
+            return;
+        }
+        if (subscription != null) {
+            subscription.cancel();
+        }
+        //a posicao e lida antes da varredura: o que mudar durante ela chega de novo pelo log
+        long from = catalogEventService.settledSequence();
+        lock.writeLock().lock();
+        try {
+            postings.clear();
+            documents.clear();
+            List<Product> batch = productRepository.findPageAfterIdAsc(0L, Limit.of(REBUILD_BATCH));
+            while (!batch.isEmpty()) {
+                batch.forEach(this::indexUnlocked);
+                Long lastId = batch.get(batch.size() - 1).getProductId();
+                batch = productRepository.findPageAfterIdAsc(lastId, Limit.of(REBUILD_BATCH));
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+        subscription = catalogEventService.subscribe("search-index", from, REBUILD_BATCH, this::apply);
+    }
+
+    //o payload pode ser parcial (lotes de preco) ou mais velho que o banco: reindexa o estado atual
+    private void apply(List<CatalogEventDTO> events) {
+        Set<Long> productIds = new LinkedHashSet<>();
+        for (CatalogEventDTO event : events) {
+            if (event.getType() == CatalogEventType.PRODUCT_CREATED || event.getType() == CatalogEventType.PRODUCT_UPDATED
+                    || event.getType() == CatalogEventType.PRODUCT_DELETED) {
+                productIds.add(event.getEntityId());
+            }
+        }
+        if (productIds.isEmpty()) {
+            return;
+        }
+        List<Product> products = productRepository.findAllById(productIds);
+        lock.writeLock().lock();
+        try {
+            productIds.forEach(this::removeUnlocked);
+            products.forEach(this::indexUnlocked);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public void index(Product product) {
+        if (!enabled) {
+            return;
+        }
+        lock.writeLock().lock();
+        try {
+            removeUnlocked(product.getProductId());
+            indexUnlocked(product);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public void remove(Long productId) {
+        if (!enabled) {
+            return;
+        }
+        lock.writeLock().lock();
+        try {
+            removeUnlocked(productId);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    //retorna os ids que contem o keyword, os melhores primeiro
+    public List<Long> search(String keyword) {
+        String term = normalize(keyword);
+        lock.readLock().lock();
+        try {
+            long[] candidates = term.length() < GRAM ? allDocuments() : candidates(term);
+            List<ScoredId> hits = new ArrayList<>();
+            for (long productId : candidates) {
+                int score = documents.get(productId).score(term);
+                if (score > 0) {
+                    hits.add(new ScoredId(productId, score));
+                }
+            }
+            hits.sort(Comparator.comparingInt(ScoredId::score).reversed()
+                    .thenComparingLong(ScoredId::productId));
+            return hits.stream().map(ScoredId::productId).toList();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    private long[] candidates(String term) {
+        Set<Long> grams = grams(term);
+        List<PostingList> lists = new ArrayList<>(grams.size());
+        for (Long gram : grams) {
+            PostingList list = postings.get(gram);
+            if (list == null) {
+                return new long[0];
+            }
+            lists.add(list);
+        }
+        //comeca pela lista menor, assim a intersecao nunca passa do tamanho dela
+        lists.sort(Comparator.comparingInt(PostingList::size));
+        long[] result = lists.get(0).toArray();
+        for (int i = 1; i < lists.size() && result.length > 0; i++) {
+            result = lists.get(i).retain(result);
+        }
+        return result;
+    }
+
+    private long[] allDocuments() {
+        return documents.keySet().stream().mapToLong(Long::longValue).toArray();
+    }
+
+    private void indexUnlocked(Product product) {
+        IndexedText text = new IndexedText(normalize(product.getProductName()), normalize(product.getDescription()));
+        documents.put(product.getProductId(), text);
+        for (Long gram : text.grams()) {
+            postings.computeIfAbsent(gram, g -> new PostingList()).add(product.getProductId());
+        }
+    }
+
+    private void removeUnlocked(Long productId) {
+        IndexedText text = documents.remove(productId);
+        if (text == null) {
+            return;
+        }
+        for (Long gram : text.grams()) {
+            PostingList list = postings.get(gram);
+            if (list != null && list.remove(productId) && list.size() == 0) {
+                postings.remove(gram);
+            }
+        }
+    }
+
+    private static String normalize(String value) {
+        return value == null ? "" : value.toLowerCase(Locale.ROOT);
+    }
+
+    //tres chars de 16 bits empacotados num long
+    private static Set<Long> grams(String value) {
+        Set<Long> grams = new HashSet<>();
+        for (int i = 0; i + GRAM <= value.length(); i++) {
+            grams.add(((long) value.charAt(i) << 32) | ((long) value.charAt(i + 1) << 16) | value.charAt(i + 2));
+        }
+        return grams;
+    }
+
+    private record ScoredId(long productId, int score) {
+    }
+
+    private record IndexedText(String name, String description) {
+
+        Set<Long> grams() {
+            Set<Long> grams = ProductSearchIndex.grams(name);
+            grams.addAll(ProductSearchIndex.grams(description));
+            return grams;
+        }
+
+        int score(String term) {
+            int position = name.indexOf(term);
+            if (position >= 0) {
+                if (name.equals(term)) {
+                    return 4;
+                }
+                return position == 0 ? 3 : 2;
+            }
+            return description.contains(term) ? 1 : 0;
+        }
+    }
+
+    //lista de ids ordenada em um long[] primitivo
+    private static final class PostingList {
+        private long[] ids = new long[4];
+        private int size;
+
+        int size() {
+            return size;
+        }
+
+        void add(long id) {
+            int position = Arrays.binarySearch(ids, 0, size, id);
+            if (position >= 0) {
+                return;
+            }
+            position = -position - 1;
+            if (size == ids.length) {
+                ids = Arrays.copyOf(ids, size * 2);
+            }
+            System.arraycopy(ids, position, ids, position + 1, size - position);
+            ids[position] = id;
+            size++;
+        }
+
+        boolean remove(long id) {
+            int position = Arrays.binarySearch(ids, 0, size, id);
+            if (position < 0) {
+                return false;
+            }
+            System.arraycopy(ids, position + 1, ids, position, size - position - 1);
+            size--;
+            return true;
+        }
+
+        long[] toArray() {
+            return Arrays.copyOf(ids, size);
+        }
+
+        long[] retain(long[] sorted) {
+            long[] result = new long[sorted.length];
+            int count = 0;
+            int from = 0;
+            for (long id : sorted) {
+                int position = Arrays.binarySearch(ids, from, size, id);
+                if (position >= 0) {
+                    result[count++] = id;
+                    from = position + 1;
+                } else {
+                    from = -position - 1;
+                }
+                if (from >= size) {
+                    break;
+                }
+            }
+            return Arrays.copyOf(result, count);
+        }
+    }
+}
@@ -1,22 +1,23 @@
 package com.ecommerce.project.service;
 
-import com.ecommerce.project.model.Product;
+import com.ecommerce.project.payload.ProductBrowseResponse;
 import com.ecommerce.project.payload.ProductDTO;
+import com.ecommerce.project.payload.ProductFilter;
 import com.ecommerce.project.payload.ProductResponse;
-import org.springframework.web.multipart.MultipartFile;
-
-import java.io.IOException;
 
 public interface ProductService {
-    ProductDTO updateProductImage(Long productId, MultipartFile image) throws IOException;
+    ProductDTO updateProductImage(Long productId, String image, String imageVariants);
 
     ProductDTO addProduct(Long categoryId, ProductDTO product);
 
-    ProductResponse getAllProducts();
+    ProductResponse getAllProducts(Integer pageNumber, Integer pageSize, String sortBy, String sortOrder, String after);
 
     ProductResponse seachByCategory(Long categoryId);
 
-    ProductResponse searchProductByKeyword(String keyword);
+    ProductResponse searchProductByKeyword(String keyword, Integer pageNumber, Integer pageSize);
+
+    ProductBrowseResponse browseProducts(ProductFilter filter, Integer pageNumber, Integer pageSize,
+                                         String sortBy, String sortOrder, Double priceBucketSize);
 
 
     ProductDTO updateProduct(Long productId, ProductDTO productDTO);
@@ -1,29 +1,54 @@
 package com.ecommerce.project.service;
 
+import com.ecommerce.project.config.AppConstants;
+import com.ecommerce.project.config.CacheConfig;
+import com.ecommerce.project.config.MetricsConfig;
+import com.ecommerce.project.config.SingleFlight;
+import com.ecommerce.project.event.CatalogChangedEvent;
+import com.ecommerce.project.event.ImageReleasedEvent;
 import com.ecommerce.project.exceptions.APIException;
 import com.ecommerce.project.exceptions.ResourceNotFoundException;
+import com.ecommerce.project.mapper.ProductMapper;
+import com.ecommerce.project.model.CatalogEventType;
 import com.ecommerce.project.model.Category;
 import com.ecommerce.project.model.Product;
+import com.ecommerce.project.payload.ProductBrowseResponse;
 import com.ecommerce.project.payload.ProductDTO;
+import com.ecommerce.project.payload.ProductFilter;
 import com.ecommerce.project.payload.ProductResponse;
 import com.ecommerce.project.repositories.CategoryRepository;
 import com.ecommerce.project.repositories.ProductRepository;
-import org.modelmapper.ModelMapper;
+import com.ecommerce.project.repositories.ProductSpecifications;
+import io.micrometer.core.annotation.Timed;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Value;
+import org.springframework.cache.annotation.Cacheable;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.data.domain.Limit;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
 import org.springframework.stereotype.Service;
-import org.springframework.web.multipart.MultipartFile;
+import org.springframework.transaction.annotation.Transactional;
 
-import java.io.File;
-import java.io.IOException;
-import java.nio.file.Files;
-import java.nio.file.Paths;
+import java.util.HashMap;
 import java.util.List;
-import java.util.UUID;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
 
 
 @Service
+@Timed(MetricsConfig.SERVICE_TIMER)
 public class ProductServiceImpl implements ProductService {
+
+    private static final Set<String> BROWSE_SORT_FIELDS =
+            Set.of("productId", "productName", "price", "discount", "specialPrice", "quantity");
+    //um centavo; abaixo disso nao ha dois precos diferentes na mesma faixa
+    private static final double MIN_PRICE_BUCKET_SIZE = 0.01;
+
     @Autowired
     private ProductRepository productRepository;
 
@@ -31,79 +56,171 @@ public class ProductServiceImpl implements ProductService {
     private CategoryRepository categoryRepository;
 
     @Autowired
-    private ModelMapper modelMapper;
+    private ProductMapper productMapper;
+
+    @Autowired
+    private ProductSearchIndex productSearchIndex;
+
+    @Autowired
+    private ApplicationEventPublisher eventPublisher;
+
+    @Autowired
+    private InventoryService inventoryService;
 
     @Autowired
-    FileService fileService;
+    private CatalogEventService catalogEventService;
 
-    @Value("${project.image")
-    private String path;
+    @Value("${project.browse.max-price-buckets:100}")
+    private int maxPriceBuckets;
 
     @Override
-    public ProductDTO updateProductImage(Long productId, MultipartFile image) throws IOException {
+    @Transactional
+    public ProductDTO updateProductImage(Long productId, String image, String imageVariants) {
 
         Product productFromDb = productRepository.findById(productId)
                 .orElseThrow(() ->
                         new ResourceNotFoundException("Product", "productId", productId));
 
-        String filename = fileService.uploadImage(path, image);
-
-        productFromDb.setImage(filename);
+        String previousImage = productFromDb.getImage();
+        String previousVariants = productFromDb.getImageVariants();
+        productFromDb.setImage(image);
+        productFromDb.setImageVariants(imageVariants);
 
         Product updatedProduct = productRepository.save(productFromDb);
+        ProductDTO updatedProductDTO = productMapper.toDTO(updatedProduct);
+        catalogEventService.append(new CatalogEventService.Change(CatalogEventType.PRODUCT_IMAGE_UPDATED, productId,
+                updatedProduct.getCategory().getCategoryId(), updatedProductDTO));
+        eventPublisher.publishEvent(CatalogChangedEvent.products(updatedProduct.getCategory().getCategoryId()));
+        if (!Objects.equals(previousImage, image)) {
+            eventPublisher.publishEvent(new ImageReleasedEvent(previousImage, previousVariants));
+        }
 
-        return modelMapper.map(updatedProduct, ProductDTO.class);
+        return updatedProductDTO;
     }
 
     @Override
+    @Transactional
     public ProductDTO addProduct(Long categoryId, ProductDTO productDTO) {
 
         Category category = categoryRepository.findById(categoryId)
                 .orElseThrow(() ->
                         new ResourceNotFoundException("category", "categoryId", categoryId));
 
-        boolean ifProductNotPresent = true;
-
-        //validacao se produto ja existe ou nao
-        List<Product> products = category.getProducts();
-        for (Product value : products) {
-            if (value.getProductName().equals(productDTO.getProductName())) {
-                ifProductNotPresent = false;
-                break;
-            }
-
+        //validacao se produto ja existe ou nao, pelo indice unico (category_id, productName)
+        if (productRepository.existsByCategoryCategoryIdAndProductName(categoryId, productDTO.getProductName())) {
+            throw new APIException("PRODUCT ALREADY EXISTS");
         }
-        if (ifProductNotPresent) {
-            Product product = modelMapper.map(productDTO, Product.class);
-
-            product.setImage("default");
-            product.setCategory(category);
-            double specialPrice = product.getSpecialPrice() -
-                    ((product.getDiscount() * 0.01) * product.getPrice());
-            product.setSpecialPrice(specialPrice);
-            Product savedProduct = productRepository.save(product);
 
-            return modelMapper.map(savedProduct, ProductDTO.class);
-        }
-        else{
+        Product product = productMapper.toEntity(productDTO);
+
+        //imagem e variantes so vem do pipeline de upload, nunca do cliente
+        product.setImage("default");
+        product.setImageVariants(null);
+        product.setCategory(category);
+        double specialPrice = product.getSpecialPrice() -
+                ((product.getDiscount() * 0.01) * product.getPrice());
+        product.setSpecialPrice(specialPrice);
+        Product savedProduct;
+        try {
+            savedProduct = productRepository.saveAndFlush(product);
+        } catch (DataIntegrityViolationException e) {
+            //outro admin inseriu o mesmo produto entre a consulta e o insert
             throw new APIException("PRODUCT ALREADY EXISTS");
         }
+        ProductDTO savedProductDTO = productMapper.toDTO(savedProduct);
+        catalogEventService.append(new CatalogEventService.Change(CatalogEventType.PRODUCT_CREATED,
+                savedProduct.getProductId(), categoryId, savedProductDTO));
+        eventPublisher.publishEvent(CatalogChangedEvent.products(categoryId));
+
+        return savedProductDTO;
     }
 
     @Override
-    public ProductResponse getAllProducts() {
-        List<Product> products = productRepository.findAll();
+    @Transactional(readOnly = true)
+    public ProductResponse getAllProducts(Integer pageNumber, Integer pageSize, String sortBy, String sortOrder, String after) {
+        checkPage(pageNumber, pageSize);
+        if (after != null && !after.isBlank()) {
+            return getProductsAfter(ProductCursor.decode(after), pageSize);
+        }
+        boolean ascending = sortOrder.equalsIgnoreCase("asc");
+        Sort sortByAndOrder = ascending
+                ? Sort.by(sortBy).ascending()
+                : Sort.by(sortBy).descending();
+        if (ProductCursor.SORT_BY_PRICE.equals(sortBy)) {
+            //desempate por id para a ordem ser a mesma do modo keyset
+            sortByAndOrder = sortByAndOrder.and(ascending
+                    ? Sort.by(ProductCursor.SORT_BY_ID).ascending()
+                    : Sort.by(ProductCursor.SORT_BY_ID).descending());
+        }
+
+        Pageable pageable = PageRequest.of(pageNumber, pageSize, sortByAndOrder);
+        Page<Product> productPage = productRepository.findAll(pageable);
+        List<Product> products = productPage.getContent();
         List<ProductDTO> productsDTOS = products.stream()
-                .map(product -> modelMapper.map(product, ProductDTO.class))
+                .map(productMapper::toDTO)
                 .toList();
 
+        ProductResponse productResponse = new ProductResponse();
+        productResponse.setContent(productsDTOS);
+        productResponse.setPageNumber(productPage.getNumber());
+        productResponse.setPageSize(productPage.getSize());
+        productResponse.setTotalElements((int) productPage.getTotalElements());
+        productResponse.setTotalPages(productPage.getTotalPages());
+        productResponse.setLastPage(productPage.isLast());
+        if (!productPage.isLast() && !products.isEmpty() && ProductCursor.supports(sortBy)) {
+            Product last = products.get(products.size() - 1);
+            productResponse.setNextCursor(ProductCursor.of(last, sortBy, ascending).encode());
+        }
+        return productResponse;
+    }
+
+    private ProductResponse getProductsAfter(ProductCursor cursor, Integer pageSize) {
+        //busca uma linha a mais so para saber se existe proxima pagina, sem count
+        Limit limit = Limit.of(pageSize + 1);
+        List<Product> products;
+        if (ProductCursor.SORT_BY_PRICE.equals(cursor.sortBy())) {
+            products = cursor.ascending()
+                    ? productRepository.findPageAfterPriceAsc(cursor.price(), cursor.productId(), limit)
+                    : productRepository.findPageAfterPriceDesc(cursor.price(), cursor.productId(), limit);
+        } else {
+            products = cursor.ascending()
+                    ? productRepository.findPageAfterIdAsc(cursor.productId(), limit)
+                    : productRepository.findPageAfterIdDesc(cursor.productId(), limit);
+        }
+
+        boolean lastPage = products.size() <= pageSize;
+        if (!lastPage) {
+            products = products.subList(0, pageSize);
+        }
+        List<ProductDTO> productsDTOS = products.stream()
+                .map(productMapper::toDTO)
+                .toList();
 
         ProductResponse productResponse = new ProductResponse();
         productResponse.setContent(productsDTOS);
+        productResponse.setPageSize(pageSize);
+        productResponse.setLastPage(lastPage);
+        if (!lastPage) {
+            Product last = products.get(products.size() - 1);
+            productResponse.setNextCursor(ProductCursor.of(last, cursor.sortBy(), cursor.ascending()).encode());
+        }
         return productResponse;
     }
 
+    //pageSize 0 quebra o keyset (Limit.of(1) e subList(0, 0)) e divide por zero no indice; o PageRequest viraria 500
+    private static void checkPage(Integer pageNumber, Integer pageSize) {
+        if (pageSize == null || pageSize < 1) {
+            throw new APIException("pageSize must be greater than zero");
+        }
+        if (pageNumber == null || pageNumber < 0) {
+            throw new APIException("pageNumber must not be negative");
+        }
+    }
+
     @Override
+    @SingleFlight
+    @Transactional(readOnly = true)
+    @Cacheable(cacheNames = CacheConfig.CATEGORY_PRODUCTS, key = "#categoryId")
     public ProductResponse seachByCategory(Long categoryId) {
         Category category = categoryRepository.findById(categoryId)
                 .orElseThrow(() ->
@@ -111,7 +228,7 @@ public class ProductServiceImpl implements ProductService {
 
         List<Product> products = productRepository.findByCategoryOrderByPriceAsc(category);
         List<ProductDTO> productsDTOS = products.stream()
-                .map(product -> modelMapper.map(product, ProductDTO.class))
+                .map(productMapper::toDTO)
                 .toList();
 
         ProductResponse productResponse = new ProductResponse();
@@ -120,25 +237,102 @@ public class ProductServiceImpl implements ProductService {
     }
 
     @Override
-    public ProductResponse searchProductByKeyword(String keyword) {
+    @SingleFlight
+    @Transactional(readOnly = true)
+    public ProductResponse searchProductByKeyword(String keyword, Integer pageNumber, Integer pageSize) {
+        checkPage(pageNumber, pageSize);
+        if (productSearchIndex.isEnabled()) {
+            return searchProductInIndex(keyword, pageNumber, pageSize);
+        }
 
-        List<Product> products = productRepository.findByProductNameLikeIgnoreCase('%' + keyword + '%');
-        List<ProductDTO> productsDTOS = products.stream()
-                .map(product -> modelMapper.map(product, ProductDTO.class))
+        Pageable pageable = PageRequest.of(pageNumber, pageSize, Sort.by(AppConstants.SORT_PRODUCTS_BY));
+        Page<Product> productPage = productRepository.findByProductNameLikeIgnoreCase('%' + keyword + '%', pageable);
+        List<ProductDTO> productsDTOS = productPage.getContent().stream()
+                .map(productMapper::toDTO)
                 .toList();
 
         ProductResponse productResponse = new ProductResponse();
         productResponse.setContent(productsDTOS);
+        productResponse.setPageNumber(productPage.getNumber());
+        productResponse.setPageSize(productPage.getSize());
+        productResponse.setTotalElements((int) productPage.getTotalElements());
+        productResponse.setTotalPages(productPage.getTotalPages());
+        productResponse.setLastPage(productPage.isLast());
+        return productResponse;
+    }
+
+    private ProductResponse searchProductInIndex(String keyword, Integer pageNumber, Integer pageSize) {
+        List<Long> rankedIds = productSearchIndex.search(keyword);
+        int from = (int) Math.min((long) pageNumber * pageSize, rankedIds.size());
+        int to = Math.min(from + pageSize, rankedIds.size());
+        List<Long> pageIds = rankedIds.subList(from, to);
+
+        //findAllById nao garante a ordem, entao reordena pelo ranking do indice
+        Map<Long, Product> productsById = new HashMap<>();
+        productRepository.findAllById(pageIds).forEach(product -> productsById.put(product.getProductId(), product));
+        List<ProductDTO> productsDTOS = pageIds.stream()
+                .map(productsById::get)
+                .filter(Objects::nonNull)
+                .map(productMapper::toDTO)
+                .toList();
+
+        int totalPages = (rankedIds.size() + pageSize - 1) / pageSize;
+        ProductResponse productResponse = new ProductResponse();
+        productResponse.setContent(productsDTOS);
+        productResponse.setPageNumber(pageNumber);
+        productResponse.setPageSize(pageSize);
+        productResponse.setTotalElements(rankedIds.size());
+        productResponse.setTotalPages(totalPages);
+        productResponse.setLastPage(pageNumber + 1 >= totalPages);
         return productResponse;
     }
 
     @Override
+    @Transactional(readOnly = true)
+    public ProductBrowseResponse browseProducts(ProductFilter filter, Integer pageNumber, Integer pageSize,
+                                                String sortBy, String sortOrder, Double priceBucketSize) {
+        checkPage(pageNumber, pageSize);
+        if (!BROWSE_SORT_FIELDS.contains(sortBy)) {
+            throw new APIException("Cannot sort products by " + sortBy);
+        }
+        if (priceBucketSize == null || priceBucketSize < MIN_PRICE_BUCKET_SIZE) {
+            throw new APIException("priceBucketSize must be at least " + MIN_PRICE_BUCKET_SIZE);
+        }
+        boolean ascending = sortOrder.equalsIgnoreCase("asc");
+        Sort sort = ascending ? Sort.by(sortBy).ascending() : Sort.by(sortBy).descending();
+        if (!ProductCursor.SORT_BY_ID.equals(sortBy)) {
+            sort = sort.and(Sort.by(ProductCursor.SORT_BY_ID));
+        }
+
+        //pagina + count + um GROUP BY por facet: o custo nao depende de quantos produtos passam no filtro
+        Page<Product> productPage = productRepository.findAll(ProductSpecifications.matching(filter),
+                PageRequest.of(pageNumber, pageSize, sort));
+        List<ProductDTO> productsDTOS = productPage.getContent().stream()
+                .map(productMapper::toDTO)
+                .toList();
+
+        ProductBrowseResponse browseResponse = new ProductBrowseResponse();
+        browseResponse.setContent(productsDTOS);
+        browseResponse.setPageNumber(productPage.getNumber());
+        browseResponse.setPageSize(productPage.getSize());
+        browseResponse.setTotalElements(productPage.getTotalElements());
+        browseResponse.setTotalPages(productPage.getTotalPages());
+        browseResponse.setLastPage(productPage.isLast());
+        browseResponse.setPriceHistogram(productRepository.priceHistogram(
+                ProductSpecifications.matching(filter, false, true), priceBucketSize, maxPriceBuckets));
+        browseResponse.setCategories(productRepository.countByCategory(
+                ProductSpecifications.matching(filter, true, false)));
+        return browseResponse;
+    }
+
+    @Override
+    @Transactional
     public ProductDTO updateProduct(Long productId, ProductDTO productDTO) {
         //get the existing product from DB
         Product productFromDb = productRepository.findById(productId)
                 .orElseThrow(() -> new ResourceNotFoundException("Product", "productId", productId));
         //update the product iwth user shared
-        Product product = modelMapper.map(productDTO, Product.class);
+        Product product = productMapper.toEntity(productDTO);
 
         productFromDb.setProductName(product.getProductName());
         productFromDb.setDescription(product.getDescription());
@@ -147,20 +341,36 @@ public class ProductServiceImpl implements ProductService {
         productFromDb.setPrice(product.getPrice());
         productFromDb.setSpecialPrice(product.getSpecialPrice());
 
-        Product savedProduct = productRepository.save(productFromDb);
+        Product savedProduct;
+        try {
+            savedProduct = productRepository.saveAndFlush(productFromDb);
+        } catch (DataIntegrityViolationException e) {
+            throw new APIException("PRODUCT ALREADY EXISTS");
+        }
+        ProductDTO savedProductDTO = productMapper.toDTO(savedProduct);
+        catalogEventService.append(new CatalogEventService.Change(CatalogEventType.PRODUCT_UPDATED, productId,
+                savedProduct.getCategory().getCategoryId(), savedProductDTO));
+        AfterCommit.run(() -> inventoryService.replaceStock(productId, savedProduct.getQuantity()));
+        eventPublisher.publishEvent(CatalogChangedEvent.products(savedProduct.getCategory().getCategoryId()));
 
         //save to database
 
-        return modelMapper.map(savedProduct, ProductDTO.class);
+        return savedProductDTO;
     }
 
     @Override
+    @Transactional
     public ProductDTO deleteProduct(Long productId) {
         Product product = productRepository.findById(productId)
                 .orElseThrow(() -> new ResourceNotFoundException("Product", "productId", productId));
 
         productRepository.delete(product);
-        return modelMapper.map(product, ProductDTO.class);
+        catalogEventService.append(new CatalogEventService.Change(CatalogEventType.PRODUCT_DELETED, productId,
+                product.getCategory().getCategoryId(), null));
+        AfterCommit.run(() -> inventoryService.evict(productId));
+        eventPublisher.publishEvent(CatalogChangedEvent.products(product.getCategory().getCategoryId()));
+        eventPublisher.publishEvent(new ImageReleasedEvent(product.getImage(), product.getImageVariants()));
+        return productMapper.toDTO(product);
     }
 
 }
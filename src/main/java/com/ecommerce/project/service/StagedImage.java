@@ -0,0 +1,7 @@
+package com.ecommerce.project.service;
+
+import java.nio.file.Path;
+
+//upload ja gravado no staging, com o SHA-256 calculado durante a copia
+public record StagedImage(Path file, String hash, String extension) {
+}
@@ -0,0 +1,76 @@
+package com.ecommerce.project.service;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+//contadores de um produto; invariante: available = onHand - reservado, e available nunca fica negativo
+final class StockCounter {
+
+    private final Long categoryId;
+    //onHand nos 32 bits altos e available nos baixos: as duas mudam juntas num unico CAS, sem lock
+    private final AtomicLong state;
+
+    StockCounter(Long categoryId, long quantity) {
+        this.categoryId = categoryId;
+        this.state = new AtomicLong(pack(quantity, quantity));
+    }
+
+    Long categoryId() {
+        return categoryId;
+    }
+
+    long onHand() {
+        return onHandOf(state.get());
+    }
+
+    long available() {
+        return availableOf(state.get());
+    }
+
+    //CAS em loop: nunca deixa available ficar negativo, sem lock
+    boolean tryReserve(long quantity) {
+        long current;
+        do {
+            current = state.get();
+            if (availableOf(current) < quantity) {
+                return false;
+            }
+        } while (!state.compareAndSet(current, pack(onHandOf(current), availableOf(current) - quantity)));
+        return true;
+    }
+
+    void release(long quantity) {
+        state.updateAndGet(current -> pack(onHandOf(current), availableOf(current) + quantity));
+    }
+
+    //a quantidade ja saiu de available na reserva, so falta sair do estoque fisico
+    long commit(long quantity) {
+        return onHandOf(state.updateAndGet(current -> pack(onHandOf(current) - quantity, availableOf(current))));
+    }
+
+    //novo estoque vindo do updateProduct; as reservas abertas ja foram prometidas e continuam valendo,
+    //entao o estoque nunca fica abaixo delas. devolve o valor aplicado
+    long replace(long quantity) {
+        long current;
+        long applied;
+        long next;
+        do {
+            current = state.get();
+            long reserved = onHandOf(current) - availableOf(current);
+            applied = Math.max(quantity, reserved);
+            next = pack(applied, applied - reserved);
+        } while (!state.compareAndSet(current, next));
+        return applied;
+    }
+
+    private static long pack(long onHand, long available) {
+        return (onHand << 32) | (available & 0xffffffffL);
+    }
+
+    private static long onHandOf(long state) {
+        return state >> 32;
+    }
+
+    private static long availableOf(long state) {
+        return (int) state;
+    }
+}
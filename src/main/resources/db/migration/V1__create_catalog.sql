@@ -0,0 +1,39 @@
+-- schema do catalogo, igual ao que o Hibernate gera a partir das entidades (o perfil persistent roda com ddl-auto=validate)
+
+-- incremento igual ao allocationSize das entidades (pooled optimizer)
+create sequence category_seq start with 1 increment by 50;
+create sequence product_seq start with 1 increment by 50;
+
+create table categories (
+    category_id bigint not null,
+    category_name varchar(255),
+    last_modified timestamp(6) with time zone,
+    primary key (category_id)
+);
+
+create table product (
+    product_id bigint not null,
+    product_name varchar(255) not null,
+    image varchar(255),
+    image_variants varchar(255),
+    description varchar(255) not null,
+    quantity integer,
+    price float(53) not null,
+    discount float(53) not null,
+    special_price float(53) not null,
+    last_modified timestamp(6) with time zone,
+    category_id bigint,
+    primary key (product_id),
+    -- tambem atende existsByCategoryCategoryIdAndProductName e a checagem de nomes do import
+    constraint uk_product_category_name unique (product_name, category_id),
+    constraint fk_product_category foreign key (category_id) references categories
+);
+
+-- findByCategoryName
+create index idx_category_name on categories (category_name);
+-- produtos da categoria ordenados por preco, filtro por categoria do browse e o join da FK
+create index idx_product_category_price on product (category_id, price);
+-- ordenacao/keyset por preco e filtros de faixa de preco
+create index idx_product_price on product (price);
+-- contagem de referencias da imagem antes de apagar o arquivo
+create index idx_product_image on product (image);
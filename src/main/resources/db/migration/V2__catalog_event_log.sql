@@ -0,0 +1,13 @@
+create table catalog_event (
+    sequence bigint not null,
+    type varchar(32) not null,
+    entity_id bigint not null,
+    category_id bigint,
+    payload varchar(4000),
+    created_at timestamp(6) with time zone not null,
+    primary key (sequence)
+);
+
+create index idx_catalog_event_created_at on catalog_event (created_at);
+
+create sequence catalog_event_seq start with 1 increment by 1;
@@ -0,0 +1,109 @@
+package com.ecommerce.project.perf;
+
+import com.ecommerce.project.model.Category;
+import com.ecommerce.project.model.Product;
+import com.ecommerce.project.repositories.CategoryRepository;
+import com.ecommerce.project.repositories.ProductRepository;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+//popula o catalogo pelos repositorios, de forma deterministica pela seed
+public class CatalogSeeder {
+
+    private static final int BATCH_SIZE = 1000;
+    private static final String[] WORDS = {
+            "phone", "laptop", "camera", "blender", "kettle", "speaker", "monitor", "keyboard",
+            "watch", "headphone", "charger", "tablet", "printer", "router", "mixer", "toaster"
+    };
+
+    //nome e descricao de cada produto semeado, para quem altera o produto sem mudar o que a busca encontra
+    public record SeededProduct(String productName, String description) {
+    }
+
+    private final CategoryRepository categoryRepository;
+    private final ProductRepository productRepository;
+    private final Random random;
+    private final double skew;
+    private ZipfSampler categorySampler;
+
+    private final List<Long> categoryIds = new ArrayList<>();
+    private final Map<Long, SeededProduct> seededProducts = new HashMap<>();
+    private long firstProductId = Long.MAX_VALUE;
+    private long lastProductId = Long.MIN_VALUE;
+
+    public CatalogSeeder(CategoryRepository categoryRepository, ProductRepository productRepository, long seed) {
+        this(categoryRepository, productRepository, seed, 0);
+    }
+
+    //skew > 0: poucas categorias concentram a maior parte dos produtos, como no catalogo real
+    public CatalogSeeder(CategoryRepository categoryRepository, ProductRepository productRepository, long seed,
+                         double skew) {
+        this.categoryRepository = categoryRepository;
+        this.productRepository = productRepository;
+        this.random = new Random(seed);
+        this.skew = skew;
+    }
+
+    public void seed(int categories, int products) {
+        for (int i = 0; i < categories; i++) {
+            Category category = new Category();
+            category.setCategoryName("Category " + i);
+            categoryIds.add(categoryRepository.save(category).getCategoryId());
+        }
+        categorySampler = new ZipfSampler(categoryIds.size(), skew);
+
+        List<Product> batch = new ArrayList<>(BATCH_SIZE);
+        for (int i = 0; i < products; i++) {
+            batch.add(newProduct(i));
+            if (batch.size() == BATCH_SIZE || i == products - 1) {
+                for (Product saved : productRepository.saveAll(batch)) {
+                    firstProductId = Math.min(firstProductId, saved.getProductId());
+                    lastProductId = Math.max(lastProductId, saved.getProductId());
+                    seededProducts.put(saved.getProductId(),
+                            new SeededProduct(saved.getProductName(), saved.getDescription()));
+                }
+                batch.clear();
+            }
+        }
+    }
+
+    private Product newProduct(int index) {
+        String word = WORDS[random.nextInt(WORDS.length)];
+        double price = 1 + random.nextInt(200_000) / 100.0;
+        double discount = random.nextInt(50);
+
+        Category category = new Category();
+        category.setCategoryId(categoryIds.get(categorySampler.next(random)));
+
+        Product product = new Product();
+        product.setProductName(word + " " + index);
+        product.setDescription("generated " + word + " number " + index);
+        product.setImage("default");
+        product.setQuantity(random.nextInt(500));
+        product.setPrice(price);
+        product.setDiscount(discount);
+        product.setSpecialPrice(price - (discount * 0.01) * price);
+        product.setCategory(category);
+        return product;
+    }
+
+    public List<Long> getCategoryIds() {
+        return categoryIds;
+    }
+
+    public SeededProduct getProduct(long productId) {
+        return seededProducts.get(productId);
+    }
+
+    public long getFirstProductId() {
+        return firstProductId;
+    }
+
+    public long getLastProductId() {
+        return lastProductId;
+    }
+}
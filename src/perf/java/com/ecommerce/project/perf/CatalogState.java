@@ -0,0 +1,69 @@
+package com.ecommerce.project.perf;
+
+import com.ecommerce.project.SbEcomApplication;
+import com.ecommerce.project.repositories.CategoryRepository;
+import com.ecommerce.project.repositories.ProductRepository;
+import com.ecommerce.project.service.CategoryService;
+import com.ecommerce.project.service.ProductService;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.List;
+import java.util.UUID;
+
+//contexto Spring sem servidor web, com um H2 em memoria proprio e catalogo gerado
+@State(Scope.Benchmark)
+public class CatalogState {
+
+    @Param({"1000"})
+    public int catalogSize;
+
+    @Param({"20"})
+    public int categoryCount;
+
+    @Param({"42"})
+    public long seed;
+
+    public ConfigurableApplicationContext context;
+    public ProductService productService;
+    public CategoryService categoryService;
+    public TransactionTemplate transactionTemplate;
+    public List<Long> categoryIds;
+    public long firstProductId;
+    public long lastProductId;
+
+    @Setup(Level.Trial)
+    public void start() {
+        context = new SpringApplicationBuilder(SbEcomApplication.class)
+                .web(WebApplicationType.NONE)
+                .properties(
+                        "spring.datasource.url=jdbc:h2:mem:bench-" + UUID.randomUUID(),
+                        "spring.main.banner-mode=off",
+                        "logging.level.root=WARN")
+                .run();
+        productService = context.getBean(ProductService.class);
+        categoryService = context.getBean(CategoryService.class);
+        transactionTemplate = new TransactionTemplate(context.getBean(PlatformTransactionManager.class));
+
+        CatalogSeeder seeder = new CatalogSeeder(context.getBean(CategoryRepository.class),
+                context.getBean(ProductRepository.class), seed);
+        seeder.seed(categoryCount, catalogSize);
+        categoryIds = seeder.getCategoryIds();
+        firstProductId = seeder.getFirstProductId();
+        lastProductId = seeder.getLastProductId();
+    }
+
+    @TearDown(Level.Trial)
+    public void stop() {
+        context.close();
+    }
+}
@@ -0,0 +1,97 @@
+package com.ecommerce.project.perf;
+
+import com.ecommerce.project.service.FileServiceImpl;
+import com.ecommerce.project.service.StagedImage;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.mock.web.MockMultipartFile;
+import org.springframework.util.FileSystemUtils;
+
+import javax.imageio.ImageIO;
+import java.awt.Color;
+import java.awt.GradientPaint;
+import java.awt.Graphics2D;
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class FileServiceBenchmark {
+
+    private static final List<Integer> VARIANT_SIZES = List.of(150, 400, 800);
+
+    @Param({"1600"})
+    public int imageWidth;
+
+    private FileServiceImpl fileService;
+    private byte[] image;
+    private Path directory;
+    private String storedImage;
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        BufferedImage source = new BufferedImage(imageWidth, imageWidth * 3 / 4, BufferedImage.TYPE_INT_RGB);
+        Graphics2D graphics = source.createGraphics();
+        graphics.setPaint(new GradientPaint(0, 0, Color.ORANGE, imageWidth, imageWidth, Color.BLUE));
+        graphics.fillRect(0, 0, source.getWidth(), source.getHeight());
+        graphics.dispose();
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        ImageIO.write(source, "jpg", bytes);
+        image = bytes.toByteArray();
+        fileService = new FileServiceImpl();
+    }
+
+    //limpa a cada iteracao para o diretorio nao crescer sem limite
+    @Setup(Level.Iteration)
+    public void createDirectory() throws IOException {
+        directory = Files.createTempDirectory("bench-images");
+        storedImage = stageAndStoreImage();
+    }
+
+    @TearDown(Level.Iteration)
+    public void deleteDirectory() throws IOException {
+        FileSystemUtils.deleteRecursively(directory);
+    }
+
+    //as variantes ja existentes sao puladas, entao cada chamada precisa comecar sem elas
+    @Setup(Level.Invocation)
+    public void deleteVariants() throws IOException {
+        String baseName = storedImage.substring(0, storedImage.lastIndexOf('.'));
+        for (Integer size : VARIANT_SIZES) {
+            Files.deleteIfExists(directory.resolve(baseName + "_" + size + ".jpg"));
+        }
+    }
+
+    //depois da primeira chamada o conteudo ja existe: mede o hash mais o caminho deduplicado
+    @Benchmark
+    public String stageAndStoreImage() throws IOException {
+        StagedImage staged = fileService.stageImage(directory.toString(),
+                new MockMultipartFile("image", "photo.jpg", "image/jpeg", image));
+        return fileService.storeImage(directory.toString(), staged);
+    }
+
+    @Benchmark
+    public List<String> createVariants() throws IOException {
+        return fileService.createVariants(directory.toString(), storedImage, VARIANT_SIZES);
+    }
+}
@@ -0,0 +1,475 @@
+package com.ecommerce.project.perf;
+
+import com.ecommerce.project.SbEcomApplication;
+import com.ecommerce.project.config.LocalReplicaFeeder;
+import com.ecommerce.project.repositories.CategoryRepository;
+import com.ecommerce.project.repositories.ProductRepository;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import org.HdrHistogram.ConcurrentHistogram;
+import org.HdrHistogram.Histogram;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.boot.web.context.WebServerApplicationContext;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+import java.util.function.Function;
+
+//gerador de carga open-loop: sobe a aplicacao com H2 proprio, gera o catalogo pelos repositorios e dispara
+//requests em taxa fixa contra todos os endpoints de ProductController e CategoryController.
+//a latencia conta a partir do horario em que o request DEVERIA ter saido (correcao de coordinated omission):
+//se o servidor trava, os requests atrasados aparecem na cauda em vez de simplesmente nao serem enviados.
+//mvn -Ploadtest verify -DskipTests -Dloadtest.args="rate=300 duration=60s catalogSize=50000 skew=1.1"
+public class LoadTest {
+
+    private static final String[] WORDS = {"phone", "laptop", "camera", "kettle", "speaker", "monitor", "watch", "router"};
+    private static final long HIGHEST_LATENCY_MICROS = TimeUnit.MINUTES.toMicros(5);
+    private static final double[] PERCENTILES = {50, 90, 99, 99.9};
+    //PNG 1x1 valido para o pipeline de imagens
+    private static final byte[] PNG = Base64.getDecoder().decode(
+            "iVBORw0KGgoAAAANSUhEUgAAAAEAAAABCAIAAACQd1PeAAAADElEQVR4nGP4z8AAAAMBAQDJ/pLvAAAAAElFTkSuQmCC");
+
+    //peso de cada operacao por 1000 requests; leitura domina como no trafego publico
+    private static final String DEFAULT_MIX = "products.page:300,products.byPrice:60,products.browse:150,"
+            + "category.products:200,products.keyword:80,categories.page:60,product.imageStatus:10,products.export:2,"
+            + "product.add:30,product.update:30,product.delete:20,products.batchUpdate:5,products.batchDelete:3,"
+            + "products.import:2,product.image:5,category.add:5,category.update:3,category.delete:2";
+
+    private final Map<String, String> config;
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private final HttpClient client = HttpClient.newBuilder()
+            .version(HttpClient.Version.HTTP_1_1)
+            .connectTimeout(Duration.ofSeconds(5))
+            .build();
+    private final Map<String, Operation> operations = new LinkedHashMap<>();
+    private final List<Operation> schedule = new ArrayList<>();
+
+    //ids criados pela propria carga: os deletes apagam so o que a carga criou, o catalogo base fica estavel
+    private final ConcurrentLinkedQueue<Long> createdProducts = new ConcurrentLinkedQueue<>();
+    private final ConcurrentLinkedQueue<Long> createdCategories = new ConcurrentLinkedQueue<>();
+    private final ConcurrentLinkedQueue<Long> imageProducts = new ConcurrentLinkedQueue<>();
+    private final AtomicLong sequence = new AtomicLong();
+
+    private String baseUrl;
+    private List<Long> categoryIds;
+    private CatalogSeeder seeder;
+    private long firstProductId;
+    private long lastProductId;
+    private ZipfSampler categorySampler;
+    private ZipfSampler productSampler;
+    private int pages;
+
+    private LoadTest(Map<String, String> config) {
+        this.config = config;
+    }
+
+    public static void main(String[] args) throws Exception {
+        Map<String, String> config = new LinkedHashMap<>();
+        for (String arg : args) {
+            int equals = arg.indexOf('=');
+            if (equals < 1) {
+                throw new IllegalArgumentException("Expected key=value, got " + arg);
+            }
+            config.put(arg.substring(0, equals), arg.substring(equals + 1));
+        }
+        System.exit(new LoadTest(config).run());
+    }
+
+    private int run() throws Exception {
+        int catalogSize = Integer.parseInt(config.getOrDefault("catalogSize", "20000"));
+        int categories = Integer.parseInt(config.getOrDefault("categories", "50"));
+        double skew = Double.parseDouble(config.getOrDefault("skew", "1.0"));
+        long seed = Long.parseLong(config.getOrDefault("seed", "42"));
+        double rate = Double.parseDouble(config.getOrDefault("rate", "200"));
+        Duration warmup = Duration.parse("PT" + config.getOrDefault("warmup", "10s").toUpperCase());
+        Duration duration = Duration.parse("PT" + config.getOrDefault("duration", "30s").toUpperCase());
+        String profiles = config.getOrDefault("profiles", "");
+
+        //como argumentos de linha de comando para valerem por cima do application.properties
+        ConfigurableApplicationContext context = new SpringApplicationBuilder(SbEcomApplication.class)
+                .profiles(profiles.isBlank() ? new String[0] : profiles.split(","))
+                .run("--server.port=0",
+                        "--spring.datasource.url=jdbc:h2:mem:loadtest-" + UUID.randomUUID(),
+                        "--project.image=target/loadtest/images/",
+                        "--project.image.staging=target/loadtest/images-staging/",
+                        "--project.inventory.journal=target/loadtest/inventory-journal/",
+                        //a carga sai toda de um cliente so; mede o servico, nao o rate limit
+                        "--project.ratelimit.enabled=false",
+                        "--spring.main.banner-mode=off",
+                        "--logging.level.root=WARN");
+        try {
+            long seedStart = System.nanoTime();
+            seeder = new CatalogSeeder(context.getBean(CategoryRepository.class),
+                    context.getBean(ProductRepository.class), seed, skew);
+            seeder.seed(categories, catalogSize);
+            //perfil replicas com H2 em memoria: as replicas so enxergam o catalogo depois desta copia
+            LocalReplicaFeeder replicaFeeder = context.getBeanProvider(LocalReplicaFeeder.class).getIfAvailable();
+            if (replicaFeeder != null) {
+                replicaFeeder.feed();
+            }
+            categoryIds = seeder.getCategoryIds();
+            firstProductId = seeder.getFirstProductId();
+            lastProductId = seeder.getLastProductId();
+            //mesmo skew nos acessos: as categorias e produtos "quentes" recebem a maior parte das leituras
+            categorySampler = new ZipfSampler(categoryIds.size(), skew);
+            productSampler = new ZipfSampler((int) (lastProductId - firstProductId + 1), skew);
+            pages = Math.max(1, catalogSize / 20);
+            System.out.printf("Seeded %d products in %d categories (skew %.2f) in %d ms%n", catalogSize, categories,
+                    skew, TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - seedStart));
+
+            int port = ((WebServerApplicationContext) context).getWebServer().getPort();
+            baseUrl = "http://localhost:" + port + "/api";
+            defineOperations();
+            buildSchedule(config.getOrDefault("mix", DEFAULT_MIX), new Random(seed));
+
+            drive(rate, warmup, duration);
+        } finally {
+            context.close();
+        }
+        return report(duration);
+    }
+
+    private void defineOperations() {
+        Set<Integer> ok = Set.of(200);
+        //429 e o servidor recusando carga de proposito (fila de imagens cheia), nao e erro
+        Set<Integer> accepted = Set.of(202, 429);
+
+        define("products.page", ok, random -> get("/public/products?pageSize=20&pageNumber="
+                + Math.min(pages - 1, productSampler.next(random) / 20)));
+        define("products.byPrice", ok, random -> get("/public/products?pageSize=20&sortBy=price&sortOrder=desc"
+                + "&pageNumber=" + random.nextInt(Math.min(pages, 50))));
+        define("products.browse", ok, random -> {
+            double minPrice = random.nextInt(1000);
+            return get("/public/products/browse?pageSize=20&categoryId=" + category(random) + "&minPrice=" + minPrice
+                    + "&maxPrice=" + (minPrice + 500) + "&inStock=" + random.nextBoolean());
+        });
+        define("category.products", ok, random -> get("/public/categories/" + category(random) + "/products"));
+        define("products.keyword", Set.of(302), random -> get("/public/categories/keyword/"
+                + WORDS[random.nextInt(WORDS.length)] + "?pageSize=20"));
+        define("categories.page", ok, random -> get("/public/categories?pageSize=20"));
+        define("product.imageStatus", ok, random -> {
+            Long productId = imageProducts.peek();
+            return productId == null ? null : get("/product/" + productId + "/image/status");
+        });
+        define("products.export", ok, random -> get("/admin/products/export?format=ndjson&categoryId="
+                + categoryIds.get(categoryIds.size() - 1 - random.nextInt(Math.min(5, categoryIds.size())))));
+
+        define("product.add", Set.of(201), random -> send("POST", "/admin/categories/" + category(random) + "/product",
+                product("load " + sequence.incrementAndGet(), random)));
+        //mantem nome e descricao do seed: a busca por keyword e por nome acha os mesmos produtos a execucao toda
+        define("product.update", ok, random -> {
+            long productId = product(random);
+            CatalogSeeder.SeededProduct seeded = seeder.getProduct(productId);
+            return send("PUT", "/admin/products/" + productId,
+                    product(seeded.productName(), seeded.description(), random));
+        });
+        define("product.delete", ok, random -> {
+            Long productId = createdProducts.poll();
+            return productId == null ? null : send("DELETE", "/admin/products/" + productId, null);
+        });
+        define("products.batchUpdate", ok, random -> {
+            ObjectNode body = objectMapper.createObjectNode();
+            var ids = body.putArray("productIds");
+            for (int i = 0; i < 20; i++) {
+                ids.add(product(random));
+            }
+            body.put("discount", random.nextInt(50));
+            return send("PUT", "/admin/products/batch", body);
+        });
+        define("products.batchDelete", ok, random -> {
+            ObjectNode body = objectMapper.createObjectNode();
+            var ids = body.putArray("productIds");
+            Long productId;
+            while (ids.size() < 5 && (productId = createdProducts.poll()) != null) {
+                ids.add(productId);
+            }
+            return ids.isEmpty() ? null : send("POST", "/admin/products/batch/delete", body);
+        });
+        define("products.import", ok, random -> {
+            StringBuilder csv = new StringBuilder("productName,description,quantity,price,discount\n");
+            for (int i = 0; i < 20; i++) {
+                long n = sequence.incrementAndGet();
+                csv.append("import ").append(n).append(",imported product ").append(n).append(',')
+                        .append(random.nextInt(100)).append(',').append(1 + random.nextInt(1000)).append(",5\n");
+            }
+            return HttpRequest.newBuilder(URI.create(baseUrl + "/admin/categories/" + category(random)
+                            + "/products/import"))
+                    .header("Content-Type", "text/csv")
+                    .POST(HttpRequest.BodyPublishers.ofString(csv.toString()));
+        });
+        define("product.image", accepted, random -> {
+            long productId = product(random);
+            String boundary = "loadtest" + UUID.randomUUID();
+            ByteArrayOutputStream body = new ByteArrayOutputStream();
+            body.writeBytes(("--" + boundary + "\r\nContent-Disposition: form-data; name=\"image\"; filename=\"p.png\"\r\n"
+                    + "Content-Type: image/png\r\n\r\n").getBytes(StandardCharsets.UTF_8));
+            body.writeBytes(PNG);
+            body.writeBytes(("\r\n--" + boundary + "--\r\n").getBytes(StandardCharsets.UTF_8));
+            imageProducts.offer(productId);
+            return HttpRequest.newBuilder(URI.create(baseUrl + "/product/" + productId + "/image"))
+                    .header("Content-Type", "multipart/form-data; boundary=" + boundary)
+                    .PUT(HttpRequest.BodyPublishers.ofByteArray(body.toByteArray()));
+        });
+        define("category.add", Set.of(201), random -> {
+            ObjectNode body = objectMapper.createObjectNode();
+            body.put("categoryName", "Load category " + sequence.incrementAndGet());
+            return send("POST", "/public/categories", body);
+        });
+        define("category.update", ok, random -> {
+            Long categoryId = createdCategories.peek();
+            if (categoryId == null) {
+                return null;
+            }
+            ObjectNode body = objectMapper.createObjectNode();
+            body.put("categoryName", "Load category " + sequence.incrementAndGet());
+            return send("PUT", "/admin/categories/" + categoryId, body);
+        });
+        define("category.delete", ok, random -> {
+            Long categoryId = createdCategories.poll();
+            return categoryId == null ? null : send("DELETE", "/admin/categories/" + categoryId, null);
+        });
+    }
+
+    private void define(String name, Set<Integer> expected, Function<Random, HttpRequest.Builder> request) {
+        operations.put(name, new Operation(name, expected, request));
+    }
+
+    //tabela com 1000 posicoes embaralhada pela seed: a mistura de operacoes e a mesma em toda execucao
+    private void buildSchedule(String mix, Random random) {
+        for (String entry : mix.split(",")) {
+            String[] parts = entry.trim().split(":");
+            Operation operation = operations.get(parts[0]);
+            if (operation == null) {
+                throw new IllegalArgumentException("Unknown operation " + parts[0] + ", expected one of " + operations.keySet());
+            }
+            for (int i = Integer.parseInt(parts[1]); i > 0; i--) {
+                schedule.add(operation);
+            }
+        }
+        Collections.shuffle(schedule, random);
+    }
+
+    private void drive(double rate, Duration warmup, Duration duration) throws InterruptedException {
+        long intervalNanos = (long) (TimeUnit.SECONDS.toNanos(1) / rate);
+        long start = System.nanoTime();
+        long measureFrom = start + warmup.toNanos();
+        long end = measureFrom + duration.toNanos();
+        System.out.printf("Driving %.0f req/s: %ds warmup + %ds measured%n", rate, warmup.toSeconds(), duration.toSeconds());
+
+        long maxLagNanos = 0;
+        for (long i = 0; ; i++) {
+            long intended = start + i * intervalNanos;
+            if (intended >= end) {
+                break;
+            }
+            long now;
+            while ((now = System.nanoTime()) < intended) {
+                LockSupport.parkNanos(intended - now);
+            }
+            maxLagNanos = Math.max(maxLagNanos, now - intended);
+            //o envio e assincrono: o gerador nunca espera a resposta para mandar o proximo (open-loop)
+            schedule.get((int) (i % schedule.size())).fire(intended, intended >= measureFrom);
+        }
+        System.out.printf("Generator max lag: %d ms%n", TimeUnit.NANOSECONDS.toMillis(maxLagNanos));
+
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(60);
+        while (operations.values().stream().anyMatch(operation -> operation.inFlight.get() > 0)
+                && System.nanoTime() < deadline) {
+            Thread.sleep(100);
+        }
+    }
+
+    private int report(Duration duration) throws IOException {
+        double seconds = duration.toNanos() / 1e9;
+        Histogram allLatency = new Histogram(HIGHEST_LATENCY_MICROS, 3);
+        long allErrors = 0;
+        ObjectNode result = objectMapper.createObjectNode();
+        System.out.printf("%n%-22s %8s %7s %8s %9s %9s %9s %9s %9s %9s%n", "operation", "count", "errors", "req/s",
+                "p50 ms", "p90 ms", "p99 ms", "p99.9 ms", "max ms", "svc p99");
+        for (Operation operation : operations.values()) {
+            Histogram latency = operation.latency.copy();
+            if (latency.getTotalCount() == 0 && operation.errors.get() == 0) {
+                continue;
+            }
+            allLatency.add(latency);
+            allErrors += operation.errors.get();
+            print(operation.name, latency, operation.errors.get(), seconds, operation.serviceTime.copy());
+            result.set(operation.name, summary(latency, operation.errors.get(), seconds));
+        }
+        print("all", allLatency, allErrors, seconds, null);
+        result.set("all", summary(allLatency, allErrors, seconds));
+        System.out.println("(latency corrected for coordinated omission; svc p99 = time from actual send)");
+
+        File resultFile = new File(config.getOrDefault("result", "target/loadtest-result.json"));
+        resultFile.getParentFile().mkdirs();
+        objectMapper.writerWithDefaultPrettyPrinter().writeValue(resultFile, result);
+        System.out.println("Result written to " + resultFile);
+
+        String baseline = config.get("baseline");
+        return baseline == null ? 0 : compare(result, objectMapper.readTree(new File(baseline)));
+    }
+
+    //regressao: p99 de alguma operacao pior que o baseline vezes a tolerancia
+    private int compare(JsonNode result, JsonNode baseline) {
+        double tolerance = Double.parseDouble(config.getOrDefault("tolerance", "1.25"));
+        int regressions = 0;
+        for (var fields = result.fields(); fields.hasNext(); ) {
+            var field = fields.next();
+            JsonNode before = baseline.get(field.getKey());
+            if (before == null) {
+                continue;
+            }
+            double p99 = field.getValue().get("p99").asDouble();
+            double baselineP99 = before.get("p99").asDouble();
+            if (p99 > baselineP99 * tolerance) {
+                regressions++;
+                System.out.printf("REGRESSION %s: p99 %.2f ms, baseline %.2f ms%n", field.getKey(), p99, baselineP99);
+            }
+        }
+        System.out.println(regressions == 0 ? "No p99 regressions against the baseline" : regressions + " regression(s)");
+        return regressions == 0 ? 0 : 1;
+    }
+
+    private static void print(String name, Histogram latency, long errors, double seconds, Histogram serviceTime) {
+        System.out.printf("%-22s %8d %7d %8.1f", name, latency.getTotalCount(), errors, latency.getTotalCount() / seconds);
+        for (double percentile : PERCENTILES) {
+            System.out.printf(" %9.2f", latency.getValueAtPercentile(percentile) / 1000.0);
+        }
+        System.out.printf(" %9.2f", latency.getMaxValue() / 1000.0);
+        System.out.printf(serviceTime == null ? "%n" : " %9.2f%n",
+                serviceTime == null ? 0 : serviceTime.getValueAtPercentile(99) / 1000.0);
+    }
+
+    private ObjectNode summary(Histogram latency, long errors, double seconds) {
+        ObjectNode node = objectMapper.createObjectNode();
+        node.put("count", latency.getTotalCount());
+        node.put("errors", errors);
+        node.put("throughput", latency.getTotalCount() / seconds);
+        node.put("p50", latency.getValueAtPercentile(50) / 1000.0);
+        node.put("p90", latency.getValueAtPercentile(90) / 1000.0);
+        node.put("p99", latency.getValueAtPercentile(99) / 1000.0);
+        node.put("p999", latency.getValueAtPercentile(99.9) / 1000.0);
+        node.put("max", latency.getMaxValue() / 1000.0);
+        return node;
+    }
+
+    private long category(Random random) {
+        return categoryIds.get(categorySampler.next(random));
+    }
+
+    private long product(Random random) {
+        return firstProductId + productSampler.next(random);
+    }
+
+    private ObjectNode product(String name, Random random) {
+        return product(name, "load test product " + name, random);
+    }
+
+    private ObjectNode product(String name, String description, Random random) {
+        ObjectNode body = objectMapper.createObjectNode();
+        body.put("productName", name);
+        body.put("description", description);
+        body.put("quantity", random.nextInt(500));
+        body.put("price", 1 + random.nextInt(2000));
+        body.put("discount", random.nextInt(50));
+        return body;
+    }
+
+    private HttpRequest.Builder get(String path) {
+        return HttpRequest.newBuilder(URI.create(baseUrl + path)).GET();
+    }
+
+    private HttpRequest.Builder send(String method, String path, JsonNode body) {
+        HttpRequest.Builder request = HttpRequest.newBuilder(URI.create(baseUrl + path));
+        if (body == null) {
+            return request.method(method, HttpRequest.BodyPublishers.noBody());
+        }
+        return request.header("Content-Type", "application/json")
+                .method(method, HttpRequest.BodyPublishers.ofString(body.toString()));
+    }
+
+    private class Operation {
+        private final String name;
+        private final Set<Integer> expected;
+        private final Function<Random, HttpRequest.Builder> request;
+        //desde o horario planejado (corrigido) e desde o envio de fato (tempo de servico)
+        private final Histogram latency = new ConcurrentHistogram(HIGHEST_LATENCY_MICROS, 3);
+        private final Histogram serviceTime = new ConcurrentHistogram(HIGHEST_LATENCY_MICROS, 3);
+        private final AtomicLong errors = new AtomicLong();
+        private final AtomicLong inFlight = new AtomicLong();
+
+        Operation(String name, Set<Integer> expected, Function<Random, HttpRequest.Builder> request) {
+            this.name = name;
+            this.expected = expected;
+            this.request = request;
+        }
+
+        void fire(long intendedNanos, boolean measured) {
+            HttpRequest.Builder builder = request.apply(ThreadLocalRandom.current());
+            if (builder == null) {
+                //nada para apagar/consultar ainda: o slot vira uma leitura de pagina, a taxa nao muda
+                operations.get("products.page").fire(intendedNanos, measured);
+                return;
+            }
+            HttpRequest httpRequest = builder.timeout(Duration.ofSeconds(60)).build();
+            inFlight.incrementAndGet();
+            long sentNanos = System.nanoTime();
+            client.sendAsync(httpRequest, HttpResponse.BodyHandlers.ofByteArray())
+                    .whenComplete((response, failure) -> {
+                        long done = System.nanoTime();
+                        try {
+                            boolean ok = failure == null && expected.contains(response.statusCode());
+                            if (ok) {
+                                track(response);
+                            }
+                            if (measured) {
+                                latency.recordValue(Math.min(HIGHEST_LATENCY_MICROS,
+                                        TimeUnit.NANOSECONDS.toMicros(done - intendedNanos)));
+                                serviceTime.recordValue(Math.min(HIGHEST_LATENCY_MICROS,
+                                        TimeUnit.NANOSECONDS.toMicros(done - sentNanos)));
+                                if (!ok) {
+                                    errors.incrementAndGet();
+                                }
+                            }
+                        } finally {
+                            inFlight.decrementAndGet();
+                        }
+                    });
+        }
+
+        private void track(HttpResponse<byte[]> response) {
+            try {
+                if (name.equals("product.add")) {
+                    createdProducts.offer(objectMapper.readTree(response.body()).get("productId").asLong());
+                } else if (name.equals("category.add")) {
+                    createdCategories.offer(objectMapper.readTree(response.body()).get("categoryId").asLong());
+                }
+            } catch (IOException ignored) {
+                //resposta sem id: so deixa de entrar na fila de deletes
+            }
+        }
+    }
+}
@@ -0,0 +1,72 @@
+package com.ecommerce.project.perf;
+
+import com.ecommerce.project.mapper.ProductMapper;
+import com.ecommerce.project.model.Product;
+import com.ecommerce.project.payload.ProductDTO;
+import org.modelmapper.ModelMapper;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.concurrent.TimeUnit;
+
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class MappingBenchmark {
+
+    private ModelMapper modelMapper;
+    private ProductMapper productMapper;
+    private Product product;
+    private ProductDTO productDTO;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        modelMapper = new ModelMapper();
+        productMapper = new ProductMapper();
+        ReflectionTestUtils.setField(productMapper, "modelMapper", modelMapper);
+
+        product = new Product();
+        product.setProductId(42L);
+        product.setProductName("phone 42");
+        product.setDescription("generated phone number 42");
+        product.setImage("default");
+        product.setQuantity(10);
+        product.setPrice(199.9);
+        product.setDiscount(10);
+        product.setSpecialPrice(179.91);
+        productDTO = productMapper.toDTO(product);
+    }
+
+    @Benchmark
+    public ProductDTO modelMapperToDTO() {
+        return modelMapper.map(product, ProductDTO.class);
+    }
+
+    @Benchmark
+    public ProductDTO productMapperToDTO() {
+        return productMapper.toDTO(product);
+    }
+
+    @Benchmark
+    public Product modelMapperToEntity() {
+        return modelMapper.map(productDTO, Product.class);
+    }
+
+    @Benchmark
+    public Product productMapperToEntity() {
+        return productMapper.toEntity(productDTO);
+    }
+}
@@ -0,0 +1,81 @@
+package com.ecommerce.project.perf;
+
+import com.ecommerce.project.payload.ProductDTO;
+import com.ecommerce.project.payload.ProductResponse;
+import com.ecommerce.project.service.ProductCursor;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Thread)
+public class ProductServiceBenchmark {
+
+    private static final int PAGE_SIZE = 50;
+
+    private final Random random = new Random(7);
+    private int middlePage;
+    private String middleCursor;
+    private long added;
+
+    @Setup(Level.Trial)
+    public void setUp(CatalogState state) {
+        middlePage = state.catalogSize / PAGE_SIZE / 2;
+        long middleId = (state.firstProductId + state.lastProductId) / 2;
+        middleCursor = new ProductCursor(ProductCursor.SORT_BY_ID, true, 0, middleId).encode();
+    }
+
+    @Benchmark
+    public ProductResponse firstPage(CatalogState state) {
+        return state.productService.getAllProducts(0, PAGE_SIZE, "productId", "asc", null);
+    }
+
+    @Benchmark
+    public ProductResponse middleOffsetPage(CatalogState state) {
+        return state.productService.getAllProducts(middlePage, PAGE_SIZE, "productId", "asc", null);
+    }
+
+    @Benchmark
+    public ProductResponse middleKeysetPage(CatalogState state) {
+        return state.productService.getAllProducts(0, PAGE_SIZE, "productId", "asc", middleCursor);
+    }
+
+    @Benchmark
+    public ProductResponse searchByKeyword(CatalogState state) {
+        return state.productService.searchProductByKeyword("phone", 0, PAGE_SIZE);
+    }
+
+    @Benchmark
+    public ProductResponse searchByCategory(CatalogState state) {
+        Long categoryId = state.categoryIds.get(random.nextInt(state.categoryIds.size()));
+        return state.productService.seachByCategory(categoryId);
+    }
+
+    @Benchmark
+    public ProductDTO addProduct(CatalogState state) {
+        ProductDTO productDTO = new ProductDTO();
+        productDTO.setProductName("bench " + Thread.currentThread().getId() + " " + added++);
+        productDTO.setDescription("added by benchmark");
+        productDTO.setQuantity(10);
+        productDTO.setPrice(99.9);
+        productDTO.setDiscount(10);
+        Long categoryId = state.categoryIds.get(random.nextInt(state.categoryIds.size()));
+        //na web o open-in-view mantem a sessao aberta durante o request; aqui a transacao faz esse papel
+        return state.transactionTemplate.execute(status -> state.productService.addProduct(categoryId, productDTO));
+    }
+}
@@ -0,0 +1,205 @@
+package com.ecommerce.project.perf;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ArrayNode;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+
+import java.io.File;
+import java.io.IOException;
+import java.net.ServerSocket;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+//tempo ate o primeiro request: sobe o jar extraido num processo novo e conta do start do processo ate o
+//primeiro 200 em /api/public/*, em cada modo (jar puro, CDS, AOT, AOT + CDS).
+//processo novo a cada rodada: JIT, class loading e caches do Spring comecam sempre do zero, como num pod novo.
+//mvn -Paot verify -DskipTests -Dstartup.args="runs=10 release=1.4.0 baseline=startup-baseline.json"
+public class StartupBenchmark {
+
+    private static final String DEFAULT_MODES = "jar,cds,aot,aot+cds";
+
+    private final Map<String, String> config;
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private final HttpClient client = HttpClient.newBuilder()
+            .version(HttpClient.Version.HTTP_1_1)
+            .connectTimeout(Duration.ofMillis(200))
+            .build();
+
+    private StartupBenchmark(Map<String, String> config) {
+        this.config = config;
+    }
+
+    public static void main(String[] args) throws Exception {
+        Map<String, String> config = new LinkedHashMap<>();
+        for (String arg : args) {
+            int equals = arg.indexOf('=');
+            if (equals < 1) {
+                throw new IllegalArgumentException("Expected key=value, got " + arg);
+            }
+            config.put(arg.substring(0, equals), arg.substring(equals + 1));
+        }
+        System.exit(new StartupBenchmark(config).run());
+    }
+
+    private int run() throws Exception {
+        File jar = new File(config.getOrDefault("jar", "target/extracted/sb-ecom-0.0.1-SNAPSHOT.jar"));
+        File archive = new File(config.getOrDefault("cds", "target/extracted/application.jsa"));
+        int runs = Integer.parseInt(config.getOrDefault("runs", "5"));
+        Duration timeout = Duration.parse("PT" + config.getOrDefault("timeout", "120s").toUpperCase());
+        String path = config.getOrDefault("path", "/api/public/products");
+        if (!jar.isFile()) {
+            throw new IllegalArgumentException("No application jar at " + jar + "; run mvn -Paot package first");
+        }
+
+        ObjectNode result = objectMapper.createObjectNode();
+        result.put("release", config.getOrDefault("release", "dev"));
+        result.put("path", path);
+        result.put("runs", runs);
+        ObjectNode modes = result.putObject("modes");
+        for (String mode : config.getOrDefault("modes", DEFAULT_MODES).split(",")) {
+            List<String> jvmArgs = jvmArgs(mode, archive);
+            long[] millis = new long[runs];
+            for (int i = 0; i < runs; i++) {
+                millis[i] = timeToFirstRequest(jar, jvmArgs, path, timeout);
+            }
+            modes.set(mode, summary(millis));
+            System.out.printf("%-8s median %5d ms  min %5d ms  max %5d ms%n", mode,
+                    modes.get(mode).get("median").asLong(), modes.get(mode).get("min").asLong(),
+                    modes.get(mode).get("max").asLong());
+        }
+
+        File resultFile = new File(config.getOrDefault("result", "target/startup-result.json"));
+        resultFile.getParentFile().mkdirs();
+        objectMapper.writerWithDefaultPrettyPrinter().writeValue(resultFile, result);
+        System.out.println("Result written to " + resultFile);
+
+        String baseline = config.get("baseline");
+        return baseline == null ? 0 : compare(modes, objectMapper.readTree(new File(baseline)).get("modes"));
+    }
+
+    private static List<String> jvmArgs(String mode, File archive) {
+        List<String> args = new ArrayList<>();
+        for (String part : mode.split("\\+")) {
+            switch (part) {
+                case "jar" -> {
+                }
+                case "aot" -> args.add("-Dspring.aot.enabled=true");
+                case "cds" -> {
+                    if (!archive.isFile()) {
+                        throw new IllegalArgumentException("No CDS archive at " + archive);
+                    }
+                    //o arquivo so vale para o mesmo JDK e o mesmo classpath; fora disso a JVM sobe sem CDS
+                    args.add("-XX:SharedArchiveFile=" + archive.getPath());
+                }
+                default -> throw new IllegalArgumentException("Unknown mode " + mode);
+            }
+        }
+        return args;
+    }
+
+    private long timeToFirstRequest(File jar, List<String> jvmArgs, String path, Duration timeout)
+            throws IOException, InterruptedException {
+        int port = freePort();
+        Path workDir = Path.of("target", "startup");
+        Files.createDirectories(workDir);
+        List<String> command = new ArrayList<>();
+        command.add(Path.of(System.getProperty("java.home"), "bin", "java").toString());
+        command.addAll(jvmArgs);
+        command.add("-jar");
+        command.add(jar.getAbsolutePath());
+        command.addAll(Arrays.asList(
+                "--server.port=" + port,
+                "--spring.datasource.url=jdbc:h2:mem:startup",
+                "--project.image=" + workDir.resolve("images") + "/",
+                "--project.image.staging=" + workDir.resolve("images-staging") + "/",
+                "--project.inventory.journal=" + workDir.resolve("inventory-journal") + "/",
+                "--spring.main.banner-mode=off",
+                "--logging.level.root=WARN"));
+
+        HttpRequest request = HttpRequest.newBuilder(URI.create("http://localhost:" + port + path))
+                .timeout(Duration.ofSeconds(5))
+                .GET()
+                .build();
+        long start = System.nanoTime();
+        Process process = new ProcessBuilder(command)
+                .redirectErrorStream(true)
+                .redirectOutput(workDir.resolve("app.log").toFile())
+                .start();
+        try {
+            long deadline = start + timeout.toNanos();
+            while (System.nanoTime() < deadline) {
+                if (!process.isAlive()) {
+                    throw new IllegalStateException("Application exited with " + process.exitValue()
+                            + ", see " + workDir.resolve("app.log"));
+                }
+                try {
+                    HttpResponse<Void> response = client.send(request, HttpResponse.BodyHandlers.discarding());
+                    if (response.statusCode() == 200) {
+                        return TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+                    }
+                } catch (IOException e) {
+                    //porta ainda fechada
+                }
+                Thread.sleep(10);
+            }
+            throw new IllegalStateException("No 200 from " + path + " within " + timeout);
+        } finally {
+            process.destroy();
+            if (!process.waitFor(30, TimeUnit.SECONDS)) {
+                process.destroyForcibly().waitFor();
+            }
+        }
+    }
+
+    private ObjectNode summary(long[] millis) {
+        long[] sorted = millis.clone();
+        Arrays.sort(sorted);
+        ObjectNode summary = objectMapper.createObjectNode();
+        summary.put("median", sorted[sorted.length / 2]);
+        summary.put("min", sorted[0]);
+        summary.put("max", sorted[sorted.length - 1]);
+        ArrayNode all = summary.putArray("millis");
+        Arrays.stream(millis).forEach(all::add);
+        return summary;
+    }
+
+    //regressao: mediana de algum modo pior que o baseline vezes a tolerancia
+    private int compare(JsonNode modes, JsonNode baseline) {
+        double tolerance = Double.parseDouble(config.getOrDefault("tolerance", "1.2"));
+        int regressions = 0;
+        for (var fields = modes.fields(); fields.hasNext(); ) {
+            var field = fields.next();
+            JsonNode before = baseline == null ? null : baseline.get(field.getKey());
+            if (before == null) {
+                continue;
+            }
+            long median = field.getValue().get("median").asLong();
+            long baselineMedian = before.get("median").asLong();
+            if (median > baselineMedian * tolerance) {
+                regressions++;
+                System.out.printf("REGRESSION %s: median %d ms, baseline %d ms%n", field.getKey(), median,
+                        baselineMedian);
+            }
+        }
+        System.out.println(regressions == 0 ? "No startup regressions against the baseline" : regressions + " regression(s)");
+        return regressions == 0 ? 0 : 1;
+    }
+
+    private static int freePort() throws IOException {
+        try (ServerSocket socket = new ServerSocket(0)) {
+            return socket.getLocalPort();
+        }
+    }
+}
@@ -0,0 +1,95 @@
+package com.ecommerce.project.perf;
+
+import com.ecommerce.project.SbEcomApplication;
+import com.ecommerce.project.repositories.CategoryRepository;
+import com.ecommerce.project.repositories.ProductRepository;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.boot.web.context.WebServerApplicationContext;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.util.UUID;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+//HTTP de verdade contra a aplicacao nos dois modos; SampleTime da throughput e p50/p99/p999.
+//virtual so faz diferenca rodando com Java 21:
+//mvn -Pjmh verify -DskipTests -Djmh.includes=ThreadingLoadBenchmark -Djmh.args="-t 400"
+@BenchmarkMode(Mode.SampleTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2, time = 5)
+@Measurement(iterations = 3, time = 10)
+@Fork(1)
+@Threads(200)
+public class ThreadingLoadBenchmark {
+
+    @State(Scope.Benchmark)
+    public static class Server {
+
+        @Param({"platform", "virtual"})
+        public String threading;
+
+        @Param({"5000"})
+        public int catalogSize;
+
+        @Param({"20"})
+        public int pageSize;
+
+        public ConfigurableApplicationContext context;
+        public HttpClient client;
+        public String baseUrl;
+        public int pages;
+
+        @Setup(Level.Trial)
+        public void start() {
+            //argumentos de linha de comando: valem por cima do application.properties (o rate limit vem ligado)
+            context = new SpringApplicationBuilder(SbEcomApplication.class)
+                    .profiles("virtual".equals(threading) ? new String[]{"virtual"} : new String[0])
+                    .run("--server.port=0",
+                            "--project.ratelimit.enabled=false",
+                            "--spring.datasource.url=jdbc:h2:mem:load-" + UUID.randomUUID(),
+                            "--spring.main.banner-mode=off",
+                            "--logging.level.root=WARN");
+            new CatalogSeeder(context.getBean(CategoryRepository.class), context.getBean(ProductRepository.class), 42)
+                    .seed(20, catalogSize);
+            int port = ((WebServerApplicationContext) context).getWebServer().getPort();
+            baseUrl = "http://localhost:" + port + "/api/public/products?pageSize=" + pageSize + "&pageNumber=";
+            pages = Math.max(1, catalogSize / pageSize);
+            client = HttpClient.newBuilder().version(HttpClient.Version.HTTP_1_1).build();
+        }
+
+        @TearDown(Level.Trial)
+        public void stop() {
+            context.close();
+        }
+    }
+
+    @Benchmark
+    public int productPage(Server server) throws IOException, InterruptedException {
+        int page = ThreadLocalRandom.current().nextInt(server.pages);
+        HttpRequest request = HttpRequest.newBuilder(URI.create(server.baseUrl + page)).GET().build();
+        HttpResponse<byte[]> response = server.client.send(request, HttpResponse.BodyHandlers.ofByteArray());
+        if (response.statusCode() != 200) {
+            throw new IllegalStateException("Unexpected status " + response.statusCode());
+        }
+        return response.body().length;
+    }
+}
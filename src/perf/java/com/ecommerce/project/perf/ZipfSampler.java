@@ -0,0 +1,30 @@
+package com.ecommerce.project.perf;
+
+import java.util.Arrays;
+import java.util.Random;
+
+//sorteia indices 0..n-1 com peso 1/(i+1)^skew: skew 0 e uniforme, 1 e o zipf classico (poucos itens quentes)
+public class ZipfSampler {
+
+    private final double[] cumulative;
+
+    public ZipfSampler(int n, double skew) {
+        if (n < 1) {
+            throw new IllegalArgumentException("n must be greater than zero");
+        }
+        cumulative = new double[n];
+        double sum = 0;
+        for (int i = 0; i < n; i++) {
+            sum += 1 / Math.pow(i + 1, skew);
+            cumulative[i] = sum;
+        }
+        for (int i = 0; i < n; i++) {
+            cumulative[i] /= sum;
+        }
+    }
+
+    public int next(Random random) {
+        int index = Arrays.binarySearch(cumulative, random.nextDouble());
+        return Math.min(index >= 0 ? index : -index - 1, cumulative.length - 1);
+    }
+}
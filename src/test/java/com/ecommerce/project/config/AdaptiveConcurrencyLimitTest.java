@@ -0,0 +1,80 @@
+package com.ecommerce.project.config;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class AdaptiveConcurrencyLimitTest {
+
+    private static final long RTT = TimeUnit.MILLISECONDS.toNanos(10);
+
+    @Test
+    void rejectsOnceTheLimitIsInFlight() {
+        AdaptiveConcurrencyLimit limit = new AdaptiveConcurrencyLimit(3, 1, 10);
+        assertTrue(limit.tryAcquire());
+        assertTrue(limit.tryAcquire());
+        assertTrue(limit.tryAcquire());
+        assertFalse(limit.tryAcquire());
+        assertEquals(3, limit.getInFlight());
+
+        limit.release(RTT);
+        assertEquals(2, limit.getInFlight());
+        assertTrue(limit.tryAcquire());
+    }
+
+    @Test
+    void growsWhileSaturatedWithStableLatencyUpToTheMax() {
+        AdaptiveConcurrencyLimit limit = new AdaptiveConcurrencyLimit(10, 1, 50);
+        saturated(limit, 20, RTT);
+        assertTrue(limit.getLimit() > 10, "limit " + limit.getLimit());
+
+        saturated(limit, 500, RTT);
+        assertEquals(50, limit.getLimit());
+    }
+
+    @Test
+    void doesNotGrowWhenMostOfTheLimitIsUnused() {
+        AdaptiveConcurrencyLimit limit = new AdaptiveConcurrencyLimit(10, 1, 50);
+        for (int i = 0; i < 100; i++) {
+            limit.tryAcquire();
+            limit.release(RTT);
+        }
+        assertEquals(10, limit.getLimit());
+    }
+
+    @Test
+    void shrinksWhenLatencyRises() {
+        AdaptiveConcurrencyLimit limit = new AdaptiveConcurrencyLimit(40, 1, 40);
+        saturated(limit, 100, RTT);
+        assertEquals(40, limit.getLimit());
+
+        saturated(limit, 10, RTT * 10);
+        assertTrue(limit.getLimit() < 40, "limit " + limit.getLimit());
+    }
+
+    @Test
+    void neverGoesBelowTheFloor() {
+        AdaptiveConcurrencyLimit limit = new AdaptiveConcurrencyLimit(40, 5, 40);
+        saturated(limit, 100, RTT);
+        long rtt = RTT;
+        for (int i = 0; i < 200; i++) {
+            rtt = rtt * 11 / 10;
+            saturated(limit, 1, rtt);
+        }
+        assertEquals(5, limit.getLimit());
+    }
+
+    //mantem o limite inteiro em uso e devolve uma amostra por vez
+    private static void saturated(AdaptiveConcurrencyLimit limit, int samples, long rttNanos) {
+        for (int i = 0; i < samples; i++) {
+            while (limit.tryAcquire()) {
+                //ocupa o que o limite deixar
+            }
+            limit.release(rttNanos);
+        }
+    }
+}
@@ -0,0 +1,108 @@
+package com.ecommerce.project.config;
+
+import com.ecommerce.project.model.Category;
+import com.ecommerce.project.repositories.CategoryRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.springframework.web.context.request.RequestContextHolder;
+import org.springframework.web.context.request.ServletRequestAttributes;
+
+import java.util.Locale;
+import java.util.function.Supplier;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+//perfil replicas com o DataSource montado pelo DataSourceConfig: a transacao read-only escolhe a replica
+@SpringBootTest(properties = {
+        "spring.datasource.url=jdbc:h2:mem:routed-primary",
+        "project.datasource.replica-urls=jdbc:h2:mem:routed-replica-1;DB_CLOSE_DELAY=-1,"
+                + "jdbc:h2:mem:routed-replica-2;DB_CLOSE_DELAY=-1",
+        "project.datasource.staleness=300ms"})
+@ActiveProfiles("replicas")
+class DataSourceConfigTest {
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Autowired
+    private CategoryRepository categoryRepository;
+
+    @Autowired
+    private LocalReplicaFeeder localReplicaFeeder;
+
+    //o SpringBootTest deixa um request mock na thread de cada teste; sem ele a escrita e "em background"
+    @BeforeEach
+    @AfterEach
+    void noRequest() {
+        RequestContextHolder.resetRequestAttributes();
+    }
+
+    @Test
+    void readOnlyTransactionsUseTheReplicasAndTheRestThePrimary() {
+        assertTrue(readOnly().startsWith("routed-replica-"));
+        assertEquals("routed-primary", readWrite());
+        //fora de transacao o Hibernate e o JdbcTemplate nao marcam read-only: primary
+        assertEquals("routed-primary", database());
+    }
+
+    @Test
+    void replicasServeTheCopyFedFromThePrimary() throws Exception {
+        Category category = new Category();
+        category.setCategoryName("Replicated " + System.nanoTime());
+        categoryRepository.save(category);
+        long primaryCount = new TransactionTemplate(transactionManager).execute(status -> countCategories());
+
+        //uma leitura por replica: ate a proxima copia elas nao tem a categoria nova
+        assertEquals(primaryCount - 1, readOnly(this::countCategories));
+        assertEquals(primaryCount - 1, readOnly(this::countCategories));
+        localReplicaFeeder.feed();
+        assertEquals(primaryCount, readOnly(this::countCategories));
+        assertEquals(primaryCount, readOnly(this::countCategories));
+    }
+
+    @Test
+    void writeInARequestSendsReadsToThePrimaryForTheStalenessWindow() throws Exception {
+        RequestContextHolder.setRequestAttributes(new ServletRequestAttributes(new MockHttpServletRequest()));
+        assertTrue(readOnly().startsWith("routed-replica-"));
+
+        assertEquals("routed-primary", readWrite());
+        assertEquals("routed-primary", readOnly());
+
+        Thread.sleep(400);
+        assertTrue(readOnly().startsWith("routed-replica-"));
+    }
+
+    private String readOnly() {
+        return readOnly(this::database);
+    }
+
+    private <T> T readOnly(Supplier<T> query) {
+        TransactionTemplate transaction = new TransactionTemplate(transactionManager);
+        transaction.setReadOnly(true);
+        return transaction.execute(status -> query.get());
+    }
+
+    private long countCategories() {
+        return jdbcTemplate.queryForObject("SELECT count(*) FROM categories", Long.class);
+    }
+
+    private String readWrite() {
+        return new TransactionTemplate(transactionManager).execute(status -> database());
+    }
+
+    private String database() {
+        return jdbcTemplate.queryForObject("SELECT DATABASE()", String.class).toLowerCase(Locale.ROOT);
+    }
+}
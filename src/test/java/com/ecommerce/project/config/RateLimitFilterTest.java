@@ -0,0 +1,74 @@
+package com.ecommerce.project.config;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+//GCRA puro, com relogio controlado pelo teste
+class RateLimitFilterTest {
+
+    private static final long INTERVAL = TimeUnit.MILLISECONDS.toNanos(100);
+    private static final int BURST = 5;
+    private static final long START = TimeUnit.SECONDS.toNanos(1000);
+
+    private final AtomicLong arrival = new AtomicLong(Long.MIN_VALUE);
+
+    @Test
+    void burstIsAdmittedAtOnceThenRejected() {
+        for (int i = 0; i < BURST; i++) {
+            assertEquals(0, acquire(START), "request " + i + " of the burst");
+        }
+        assertEquals(INTERVAL, acquire(START));
+        //rejeitado nao consome: o proximo no mesmo instante recebe a mesma espera
+        assertEquals(INTERVAL, acquire(START));
+    }
+
+    @Test
+    void afterTheBurstOneRequestPerInterval() {
+        for (int i = 0; i < BURST; i++) {
+            acquire(START);
+        }
+        for (int i = 1; i <= 20; i++) {
+            long now = START + i * INTERVAL;
+            assertEquals(0, acquire(now), "first request of interval " + i);
+            assertEquals(INTERVAL, acquire(now), "second request of interval " + i);
+        }
+        //no meio do intervalo falta so o resto
+        assertEquals(INTERVAL / 2, acquire(START + 20 * INTERVAL + INTERVAL / 2));
+    }
+
+    @Test
+    void idleClientGetsTheBurstBackButNotMore() {
+        for (int i = 0; i < BURST; i++) {
+            acquire(START);
+        }
+        long later = START + TimeUnit.MINUTES.toNanos(1);
+        for (int i = 0; i < BURST; i++) {
+            assertEquals(0, acquire(later), "request " + i + " after idle");
+        }
+        assertEquals(INTERVAL, acquire(later));
+    }
+
+    @Test
+    void retryAfterRoundsUpToWholeSeconds() {
+        assertEquals(1, RateLimitFilter.retryAfterSeconds(1));
+        assertEquals(1, RateLimitFilter.retryAfterSeconds(INTERVAL));
+        assertEquals(1, RateLimitFilter.retryAfterSeconds(TimeUnit.SECONDS.toNanos(1)));
+        assertEquals(2, RateLimitFilter.retryAfterSeconds(TimeUnit.SECONDS.toNanos(1) + 1));
+
+        //1 request a cada 3s sem burst: o segundo espera o intervalo inteiro
+        long interval = TimeUnit.SECONDS.toNanos(3);
+        AtomicLong slow = new AtomicLong(Long.MIN_VALUE);
+        assertEquals(0, RateLimitFilter.acquire(slow, interval, interval, START));
+        long waitNanos = RateLimitFilter.acquire(slow, interval, interval, START + TimeUnit.MILLISECONDS.toNanos(500));
+        assertEquals(TimeUnit.MILLISECONDS.toNanos(2500), waitNanos);
+        assertEquals(3, RateLimitFilter.retryAfterSeconds(waitNanos));
+    }
+
+    private long acquire(long now) {
+        return RateLimitFilter.acquire(arrival, INTERVAL, INTERVAL * BURST, now);
+    }
+}
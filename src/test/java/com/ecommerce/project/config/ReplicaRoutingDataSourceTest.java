@@ -0,0 +1,134 @@
+package com.ecommerce.project.config;
+
+import com.zaxxer.hikari.HikariDataSource;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.web.context.request.RequestContextHolder;
+import org.springframework.web.context.request.ServletRequestAttributes;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+//pools H2 de verdade, um banco por pool: DATABASE() diz para onde cada conexao foi
+class ReplicaRoutingDataSourceTest {
+
+    private static final Duration STALENESS = Duration.ofMillis(300);
+
+    private final String prefix = "routing-" + System.nanoTime() + "-";
+    private final List<HikariDataSource> pools = new ArrayList<>();
+    private final HikariDataSource primary = pool("primary");
+    private ReplicaRoutingDataSource routing;
+
+    @AfterEach
+    void close() {
+        RequestContextHolder.resetRequestAttributes();
+        pools.forEach(HikariDataSource::close);
+    }
+
+    @Test
+    void readsRotateOverTheReplicas() throws SQLException {
+        routing = routing(pool("replica-1"), pool("replica-2"));
+
+        assertEquals(List.of("replica-1", "replica-2", "replica-1", "replica-2"),
+                List.of(database(routing), database(routing), database(routing), database(routing)));
+    }
+
+    @Test
+    void writeInARequestKeepsReadsOnThePrimaryUntilStalenessAfterItEnds() throws Exception {
+        routing = routing(pool("replica-1"));
+        RequestContextHolder.setRequestAttributes(new ServletRequestAttributes(new MockHttpServletRequest()));
+
+        Connection write = routing.writes().getConnection();
+        assertEquals("primary", database(write));
+        assertEquals("primary", database(routing));
+        //transacao mais longa que a janela: a janela recomeca quando a conexao volta
+        Thread.sleep(STALENESS.toMillis() + 100);
+        write.close();
+        assertEquals("primary", database(routing));
+
+        Thread.sleep(STALENESS.toMillis() + 100);
+        assertEquals("replica-1", database(routing));
+    }
+
+    @Test
+    void backgroundWriteDoesNotMoveReads() throws SQLException {
+        routing = routing(pool("replica-1"));
+
+        try (Connection write = routing.writes().getConnection()) {
+            assertEquals("primary", database(write));
+            assertEquals("replica-1", database(routing));
+        }
+        assertEquals("replica-1", database(routing));
+    }
+
+    @Test
+    void unavailableReplicaIsSkippedAndNoReplicaMeansPrimary() throws SQLException {
+        routing = routing(unreachable("down-1"), pool("replica-2"));
+        assertEquals("replica-2", database(routing));
+        //a que falhou fica fora da rotacao pelo replica-retry
+        assertEquals("replica-2", database(routing));
+
+        routing = routing(unreachable("down-1"), unreachable("down-2"));
+        assertEquals("primary", database(routing));
+    }
+
+    @Test
+    void poolCredentialsAreRoutedLikeAnyRead() throws SQLException {
+        routing = routing(pool("replica-1"));
+
+        try (Connection connection = routing.getConnection("sa", "")) {
+            assertEquals("replica-1", database(connection));
+        }
+    }
+
+    private ReplicaRoutingDataSource routing(HikariDataSource... replicas) {
+        return new ReplicaRoutingDataSource(primary, List.of(replicas), STALENESS, Duration.ofSeconds(10));
+    }
+
+    private HikariDataSource pool(String name) {
+        HikariDataSource pool = new HikariDataSource();
+        pool.setPoolName(name);
+        pool.setJdbcUrl("jdbc:h2:mem:" + prefix + name);
+        pool.setUsername("sa");
+        pool.setPassword("");
+        pool.setMaximumPoolSize(2);
+        pools.add(pool);
+        return pool;
+    }
+
+    private HikariDataSource unreachable(String name) {
+        HikariDataSource pool = new HikariDataSource();
+        pool.setPoolName(name);
+        pool.setJdbcUrl("jdbc:h2:tcp://localhost:1/" + name);
+        pool.setUsername("sa");
+        pool.setPassword("");
+        pool.setConnectionTimeout(250);
+        pool.setInitializationFailTimeout(-1);
+        pools.add(pool);
+        return pool;
+    }
+
+    private String database(DataSource dataSource) throws SQLException {
+        try (Connection connection = dataSource.getConnection()) {
+            return database(connection);
+        }
+    }
+
+    private String database(Connection connection) throws SQLException {
+        try (Statement statement = connection.createStatement();
+             ResultSet resultSet = statement.executeQuery("SELECT DATABASE()")) {
+            resultSet.next();
+            return resultSet.getString(1).toLowerCase(Locale.ROOT).substring(prefix.length());
+        }
+    }
+}
@@ -0,0 +1,163 @@
+package com.ecommerce.project.controller;
+
+import com.ecommerce.project.model.Category;
+import com.ecommerce.project.model.Product;
+import com.ecommerce.project.repositories.CategoryRepository;
+import com.ecommerce.project.repositories.ProductRepository;
+import com.jayway.jsonpath.JsonPath;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.web.servlet.MockMvc;
+
+import java.util.List;
+
+import static org.hamcrest.Matchers.contains;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+//cada facet conta com todos os filtros menos o proprio: o histograma ignora minPrice/maxPrice
+//e a contagem por categoria ignora categoryId
+@SpringBootTest(properties = {
+        "spring.datasource.url=jdbc:h2:mem:browse",
+        "project.browse.max-price-buckets=10"})
+@AutoConfigureMockMvc
+class ProductBrowseTest {
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private CategoryRepository categoryRepository;
+
+    @Autowired
+    private ProductRepository productRepository;
+
+    private Long books;
+    private Long games;
+
+    @BeforeEach
+    void seed() {
+        productRepository.deleteAll();
+        categoryRepository.deleteAll();
+        books = category("Books");
+        games = category("Games");
+        product("Novel", 10, 5, books);
+        product("Atlas", 20, 0, books);
+        product("Encyclopedia", 60, 2, books);
+        product("Dice", 15, 3, games);
+        product("Console", 120, 1, games);
+    }
+
+    @Test
+    void priceAndCategoryFiltersEachSkipTheirOwnFacet() throws Exception {
+        mockMvc.perform(get("/api/public/products/browse?categoryId=" + books + "&minPrice=15"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.totalElements").value(2))
+                .andExpect(jsonPath("$.content[*].productName").value(contains("Atlas", "Encyclopedia")))
+                //so a categoria: 10, 20 e 60
+                .andExpect(jsonPath("$.priceHistogram[*].from").value(contains(0.0, 50.0)))
+                .andExpect(jsonPath("$.priceHistogram[*].count").value(contains(2, 1)))
+                //so o preco: 20 e 60 em Books, 15 e 120 em Games
+                .andExpect(jsonPath("$.categories[*].categoryId").value(contains(books.intValue(), games.intValue())))
+                .andExpect(jsonPath("$.categories[*].count").value(contains(2, 2)));
+    }
+
+    @Test
+    void otherFiltersApplyToEveryFacet() throws Exception {
+        mockMvc.perform(get("/api/public/products/browse?inStock=true&maxPrice=100"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.content[*].productName").value(contains("Novel", "Encyclopedia", "Dice")))
+                //em estoque, qualquer preco: 10, 15, 60 e 120
+                .andExpect(jsonPath("$.priceHistogram[*].from").value(contains(0.0, 50.0, 100.0)))
+                .andExpect(jsonPath("$.priceHistogram[*].count").value(contains(2, 1, 1)))
+                .andExpect(jsonPath("$.categories[*].categoryId").value(contains(books.intValue(), games.intValue())))
+                .andExpect(jsonPath("$.categories[*].count").value(contains(2, 1)));
+    }
+
+    @Test
+    void sortsOnlyByWhitelistedFields() throws Exception {
+        mockMvc.perform(get("/api/public/products/browse?sortBy=price&sortOrder=desc"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.content[*].productName")
+                        .value(contains("Console", "Encyclopedia", "Atlas", "Dice", "Novel")));
+
+        mockMvc.perform(get("/api/public/products/browse?sortBy=description"))
+                .andExpect(status().isBadRequest())
+                .andExpect(jsonPath("$.message").value("Cannot sort products by description"));
+    }
+
+    @Test
+    void tinyBucketSizeIsWidenedToTheBucketLimit() throws Exception {
+        //25 precos distintos para 10 faixas no maximo
+        for (int i = 1; i <= 20; i++) {
+            product("Card " + i, 30 + i, 1, games);
+        }
+        String body = mockMvc.perform(get("/api/public/products/browse?priceBucketSize=0.01"))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getContentAsString();
+
+        List<Number> counts = JsonPath.read(body, "$.priceHistogram[*].count");
+        assertTrue(counts.size() <= 10, counts.size() + " buckets");
+        assertEquals(25, counts.stream().mapToLong(Number::longValue).sum());
+        //continua multiplo do tamanho pedido
+        List<Number> from = JsonPath.read(body, "$.priceHistogram[*].from");
+        List<Number> to = JsonPath.read(body, "$.priceHistogram[*].to");
+        double cents = (to.get(0).doubleValue() - from.get(0).doubleValue()) / 0.01;
+        assertTrue(cents > 1, "width " + cents + " cents");
+        assertEquals(Math.round(cents), cents, 1e-6);
+
+        mockMvc.perform(get("/api/public/products/browse?priceBucketSize=0.001"))
+                .andExpect(status().isBadRequest());
+    }
+
+    @Test
+    void pageParametersAreCheckedInEveryMode() throws Exception {
+        String body = mockMvc.perform(get("/api/public/products?pageSize=2"))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getContentAsString();
+        String cursor = JsonPath.read(body, "$.nextCursor");
+
+        for (String url : List.of(
+                "/api/public/products?pageSize=0",
+                "/api/public/products?pageSize=0&after=" + cursor,
+                "/api/public/categories/keyword/novel?pageSize=0",
+                "/api/public/products/browse?pageSize=0")) {
+            mockMvc.perform(get(url))
+                    .andExpect(status().isBadRequest())
+                    .andExpect(jsonPath("$.message").value("pageSize must be greater than zero"));
+        }
+        for (String url : List.of(
+                "/api/public/products?pageNumber=-1",
+                "/api/public/categories/keyword/novel?pageNumber=-1",
+                "/api/public/products/browse?pageNumber=-1")) {
+            mockMvc.perform(get(url))
+                    .andExpect(status().isBadRequest())
+                    .andExpect(jsonPath("$.message").value("pageNumber must not be negative"));
+        }
+    }
+
+    private Long category(String name) {
+        Category category = new Category();
+        category.setCategoryName(name);
+        return categoryRepository.save(category).getCategoryId();
+    }
+
+    private void product(String name, double price, int quantity, Long categoryId) {
+        Product product = new Product();
+        product.setProductName(name);
+        product.setDescription("Description of " + name);
+        product.setImage("default");
+        product.setQuantity(quantity);
+        product.setPrice(price);
+        product.setDiscount(5.0);
+        product.setSpecialPrice(price * 0.95);
+        product.setCategory(categoryRepository.getReferenceById(categoryId));
+        productRepository.save(product);
+    }
+}
@@ -0,0 +1,44 @@
+package com.ecommerce.project.controller;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.HttpHeaders;
+import org.springframework.test.web.servlet.MockMvc;
+
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+//1 request a cada 100s com burst 2: o terceiro seguido sempre e rejeitado
+@SpringBootTest(properties = {
+        "spring.datasource.url=jdbc:h2:mem:rate-limit",
+        "project.ratelimit.public.rate=0.01",
+        "project.ratelimit.public.burst=2"})
+@AutoConfigureMockMvc
+class RateLimitResponseTest {
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Test
+    void exceedingTheRateReturns429WithRetryAfter() throws Exception {
+        mockMvc.perform(get("/api/public/products")).andExpect(status().isOk());
+        mockMvc.perform(get("/api/public/products")).andExpect(status().isOk());
+
+        mockMvc.perform(get("/api/public/products"))
+                .andExpect(status().isTooManyRequests())
+                //espera o resto do intervalo de 100s, arredondada para cima
+                .andExpect(result -> {
+                    long retryAfter = Long.parseLong(result.getResponse().getHeader(HttpHeaders.RETRY_AFTER));
+                    assertTrue(retryAfter > 90 && retryAfter <= 100, "Retry-After " + retryAfter);
+                })
+                .andExpect(jsonPath("$.message").value("Rate limit exceeded for public requests"))
+                .andExpect(jsonPath("$.status").value(false));
+
+        //o limite e por grupo de rotas: admin continua com o proprio
+        mockMvc.perform(get("/api/admin/caches")).andExpect(status().isOk());
+    }
+}
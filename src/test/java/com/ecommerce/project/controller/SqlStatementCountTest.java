@@ -0,0 +1,124 @@
+package com.ecommerce.project.controller;
+
+import com.ecommerce.project.config.MetricsConfig;
+import com.ecommerce.project.model.Category;
+import com.ecommerce.project.model.Product;
+import com.ecommerce.project.repositories.CategoryRepository;
+import com.ecommerce.project.repositories.ProductRepository;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.cache.CacheManager;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.ResultMatcher;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+//a quantidade de SQL por endpoint tem que ser a mesma com poucos e com muitos produtos/categorias;
+//se crescer com os dados e N+1
+@SpringBootTest(properties = "spring.datasource.url=jdbc:h2:mem:sql-count")
+@AutoConfigureMockMvc
+class SqlStatementCountTest {
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Autowired
+    private CacheManager cacheManager;
+
+    @Autowired
+    private CategoryRepository categoryRepository;
+
+    @Autowired
+    private ProductRepository productRepository;
+
+    private final List<Long> categoryIds = new ArrayList<>();
+    private int productCount;
+
+    @Test
+    void statementCountPerEndpointDoesNotGrowWithData() throws Exception {
+        seed(2, 3);
+        Map<String, Long> small = measure();
+
+        seed(10, 4);
+        Map<String, Long> large = measure();
+
+        assertEquals(small, large);
+        small.forEach((endpoint, statements) ->
+                assertTrue(statements > 0, endpoint + " did not run any SQL"));
+    }
+
+    private Map<String, Long> measure() throws Exception {
+        Long categoryId = categoryIds.get(0);
+        Map<String, Long> statements = new LinkedHashMap<>();
+        statements.put("products", statements("/api/public/products", "/api/public/products"));
+        statements.put("products by price", statements("/api/public/products?sortBy=price&sortOrder=desc",
+                "/api/public/products"));
+        statements.put("categories", statements("/api/public/categories", "/api/public/categories"));
+        statements.put("category products", statements("/api/public/categories/" + categoryId + "/products",
+                "/api/public/categories/{categoryId}/products"));
+        //a busca por keyword sempre respondeu 302 (FOUND) com o corpo
+        statements.put("keyword", statements("/api/public/categories/keyword/Product",
+                "/api/public/categories/keyword/{keyword}", status().isFound()));
+        statements.put("browse", statements("/api/public/products/browse?inStock=true&sortBy=price",
+                "/api/public/products/browse"));
+        return statements;
+    }
+
+    private long statements(String url, String route) throws Exception {
+        return statements(url, route, status().is2xxSuccessful());
+    }
+
+    //mede pelo proprio metrico do filtro: diferenca do total antes e depois do request
+    private long statements(String url, String route, ResultMatcher expectedStatus) throws Exception {
+        //o seed vai direto no repository, sem evento; limpa o cache para medir a consulta de verdade
+        cacheManager.getCacheNames().forEach(name -> cacheManager.getCache(name).clear());
+        double before = total(route);
+        //um endpoint quebrado tambem teria contagem constante; so vale medir resposta de sucesso
+        mockMvc.perform(get(url)).andExpect(expectedStatus);
+        return Math.round(total(route) - before);
+    }
+
+    private double total(String route) {
+        DistributionSummary summary = meterRegistry.find(MetricsConfig.SQL_STATEMENTS)
+                .tags("method", "GET", "uri", route)
+                .summary();
+        return summary == null ? 0 : summary.totalAmount();
+    }
+
+    private void seed(int categories, int productsPerCategory) {
+        for (int c = 0; c < categories; c++) {
+            Category category = new Category();
+            category.setCategoryName("Category " + (categoryIds.size() + 1));
+            category = categoryRepository.save(category);
+            categoryIds.add(category.getCategoryId());
+            for (int p = 0; p < productsPerCategory; p++) {
+                productCount++;
+                Product product = new Product();
+                product.setProductName("Product " + productCount);
+                product.setDescription("Description of product " + productCount);
+                product.setImage("default");
+                product.setQuantity(productCount % 4);
+                product.setPrice(10.0 * productCount);
+                product.setDiscount(5.0);
+                product.setSpecialPrice(9.5 * productCount);
+                product.setCategory(category);
+                productRepository.save(product);
+            }
+        }
+    }
+}
@@ -0,0 +1,99 @@
+package com.ecommerce.project.mapper;
+
+import com.ecommerce.project.model.Category;
+import com.ecommerce.project.model.Product;
+import com.ecommerce.project.payload.CategoryDTO;
+import com.ecommerce.project.payload.ProductDTO;
+import org.junit.jupiter.api.Test;
+import org.modelmapper.ModelMapper;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+//project.mapper.verify=true: cada mapeamento manual e comparado com o ModelMapper
+class MapperVerifyTest {
+
+    @Test
+    void currentMappingsAgreeWithModelMapper() {
+        ProductMapper productMapper = productMapper(new ModelMapper());
+        Product product = product();
+
+        ProductDTO productDTO = productMapper.toDTO(product);
+        assertEquals("Kettle", productDTO.getProductName());
+        assertEquals("k.png_150.jpg,k.png_400.jpg", productDTO.getImageVariants());
+        Product entity = productMapper.toEntity(productDTO);
+        assertEquals(17.1, entity.getSpecialPrice());
+
+        CategoryMapper categoryMapper = categoryMapper(new ModelMapper());
+        Category category = new Category();
+        category.setCategoryId(3L);
+        category.setCategoryName("Kitchen");
+        category.setProducts(List.of(product));
+        assertEquals(new CategoryDTO(3L, "Kitchen"), categoryMapper.toDTO(category));
+        assertEquals("Kitchen", categoryMapper.toEntity(new CategoryDTO(3L, "Kitchen")).getCategoryName());
+    }
+
+    @Test
+    void mismatchWithModelMapperIsReported() {
+        //ModelMapper sem a description: o mesmo efeito de um campo esquecido no mapper manual
+        ModelMapper withoutDescription = new ModelMapper();
+        withoutDescription.typeMap(Product.class, ProductDTO.class)
+                .addMappings(mapping -> mapping.skip(ProductDTO::setDescription));
+        withoutDescription.typeMap(ProductDTO.class, Product.class)
+                .addMappings(mapping -> mapping.skip(Product::setDescription));
+        ProductMapper productMapper = productMapper(withoutDescription);
+
+        IllegalStateException toDTO = assertThrows(IllegalStateException.class,
+                () -> productMapper.toDTO(product()));
+        assertTrue(toDTO.getMessage().contains("differs from ModelMapper output"), toDTO.getMessage());
+        ProductDTO productDTO = new ProductDTO(1L, "Kettle", "k.png", null, "Steel kettle", 4, 19.0, 10.0, 17.1);
+        assertThrows(IllegalStateException.class, () -> productMapper.toEntity(productDTO));
+
+        ModelMapper withoutName = new ModelMapper();
+        withoutName.typeMap(Category.class, CategoryDTO.class)
+                .addMappings(mapping -> mapping.skip(CategoryDTO::setCategoryName));
+        Category category = new Category();
+        category.setCategoryId(3L);
+        category.setCategoryName("Kitchen");
+        assertThrows(IllegalStateException.class, () -> categoryMapper(withoutName).toDTO(category));
+    }
+
+    @Test
+    void verifyOffSkipsModelMapper() {
+        ProductMapper productMapper = new ProductMapper();
+
+        assertEquals("Kettle", productMapper.toDTO(product()).getProductName());
+    }
+
+    private static ProductMapper productMapper(ModelMapper modelMapper) {
+        ProductMapper productMapper = new ProductMapper();
+        ReflectionTestUtils.setField(productMapper, "modelMapper", modelMapper);
+        ReflectionTestUtils.setField(productMapper, "verify", true);
+        return productMapper;
+    }
+
+    private static CategoryMapper categoryMapper(ModelMapper modelMapper) {
+        CategoryMapper categoryMapper = new CategoryMapper();
+        ReflectionTestUtils.setField(categoryMapper, "modelMapper", modelMapper);
+        ReflectionTestUtils.setField(categoryMapper, "verify", true);
+        return categoryMapper;
+    }
+
+    private static Product product() {
+        Product product = new Product();
+        product.setProductId(1L);
+        product.setProductName("Kettle");
+        product.setImage("k.png");
+        product.setImageVariants("k.png_150.jpg,k.png_400.jpg");
+        product.setDescription("Steel kettle");
+        product.setQuantity(4);
+        product.setPrice(19.0);
+        product.setDiscount(10.0);
+        product.setSpecialPrice(17.1);
+        return product;
+    }
+}
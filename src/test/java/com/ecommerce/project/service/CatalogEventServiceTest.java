@@ -0,0 +1,205 @@
+package com.ecommerce.project.service;
+
+import com.ecommerce.project.model.CatalogEventType;
+import com.ecommerce.project.payload.CatalogEventDTO;
+import com.ecommerce.project.payload.CatalogEventResponse;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.BooleanSupplier;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+//ordem, entrega sem buraco e retencao do log. retencao zero: o purge so respeita a posicao dos subscribers
+@SpringBootTest(properties = {
+        "spring.datasource.url=jdbc:h2:mem:catalog-events",
+        "project.events.gap-timeout=2s",
+        "project.events.retention=0s"})
+class CatalogEventServiceTest {
+
+    @Autowired
+    private CatalogEventService catalogEventService;
+
+    @Autowired
+    private CatalogEventServiceImpl catalogEventServiceImpl;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    private long start;
+
+    @BeforeEach
+    void lastSequence() {
+        start = catalogEventService.readAfter(0, 1).getLastSequence();
+    }
+
+    @Test
+    void concurrentCommitsReachTheSubscriberOnceEachAndInOrder() throws Exception {
+        List<List<CatalogEventDTO>> batches = Collections.synchronizedList(new ArrayList<>());
+        CatalogEventService.Subscription subscription = catalogEventService.subscribe("test", start, 7, batches::add);
+        try {
+            ExecutorService executor = Executors.newFixedThreadPool(4);
+            List<Future<?>> writers = new ArrayList<>();
+            for (int writer = 0; writer < 4; writer++) {
+                writers.add(executor.submit(() -> {
+                    for (int i = 0; i < 25; i++) {
+                        append(CatalogEventType.PRODUCT_UPDATED, 1L);
+                    }
+                }));
+            }
+            for (Future<?> writer : writers) {
+                writer.get();
+            }
+            executor.shutdown();
+
+            await(() -> subscription.position() == start + 100);
+            List<Long> sequences = new ArrayList<>();
+            synchronized (batches) {
+                for (List<CatalogEventDTO> batch : batches) {
+                    assertTrue(batch.size() <= 7, batch.size() + " events in one batch");
+                    batch.forEach(event -> sequences.add(event.getSequence()));
+                }
+            }
+            for (int i = 0; i < 100; i++) {
+                assertEquals(start + i + 1, sequences.get(i));
+            }
+            assertEquals(100, sequences.size());
+        } finally {
+            subscription.cancel();
+        }
+    }
+
+    @Test
+    void laterCommitWaitsForAnEarlierSequenceStillInFlight() throws Exception {
+        List<CatalogEventDTO> received = Collections.synchronizedList(new ArrayList<>());
+        CatalogEventService.Subscription subscription = catalogEventService.subscribe("test", start, 10,
+                received::addAll);
+        ExecutorService executor = Executors.newSingleThreadExecutor();
+        try {
+            CountDownLatch appended = new CountDownLatch(1);
+            CountDownLatch commit = new CountDownLatch(1);
+            Future<?> slow = executor.submit(() -> new TransactionTemplate(transactionManager)
+                    .executeWithoutResult(status -> {
+                        catalogEventService.append(new CatalogEventService.Change(CatalogEventType.PRODUCT_CREATED,
+                                1L, null, null));
+                        appended.countDown();
+                        try {
+                            commit.await();
+                        } catch (InterruptedException e) {
+                            Thread.currentThread().interrupt();
+                        }
+                    }));
+            assertTrue(appended.await(10, TimeUnit.SECONDS));
+            append(CatalogEventType.PRODUCT_UPDATED, 2L);
+
+            //start + 2 ja esta commitado, mas start + 1 ainda pode chegar
+            CatalogEventResponse response = catalogEventService.readAfter(start, 10);
+            assertEquals(List.of(), response.getEvents());
+            assertEquals(start, response.getNextAfter());
+            assertEquals(start + 2, response.getLastSequence());
+            catalogEventServiceImpl.poll();
+            Thread.sleep(200);
+            assertEquals(List.of(), received);
+
+            commit.countDown();
+            slow.get();
+            await(() -> received.size() == 2);
+            assertEquals(List.of(1L, 2L), received.stream().map(CatalogEventDTO::getEntityId).toList());
+            assertEquals(List.of(start + 1, start + 2), received.stream().map(CatalogEventDTO::getSequence).toList());
+            assertEquals(start + 2, catalogEventService.readAfter(start, 10).getNextAfter());
+        } finally {
+            executor.shutdown();
+            subscription.cancel();
+        }
+    }
+
+    @Test
+    void rolledBackSequenceIsSkippedRightAway() {
+        new TransactionTemplate(transactionManager).executeWithoutResult(status -> {
+            catalogEventService.append(new CatalogEventService.Change(CatalogEventType.PRODUCT_CREATED, 1L, null,
+                    null));
+            status.setRollbackOnly();
+        });
+        append(CatalogEventType.PRODUCT_UPDATED, 2L);
+
+        CatalogEventResponse response = catalogEventService.readAfter(start, 10);
+        assertEquals(List.of(start + 2), response.getEvents().stream().map(CatalogEventDTO::getSequence).toList());
+        assertEquals(start + 2, response.getNextAfter());
+    }
+
+    @Test
+    void unknownGapIsSkippedAfterTheGapTimeout() throws Exception {
+        //numero pego por outra instancia que nunca commitou: daqui nao da para saber se ainda vai chegar
+        jdbcTemplate.queryForObject("SELECT NEXT VALUE FOR catalog_event_seq", Long.class);
+        append(CatalogEventType.PRODUCT_UPDATED, 2L);
+
+        assertEquals(List.of(), catalogEventService.readAfter(start, 10).getEvents());
+        await(() -> !catalogEventService.readAfter(start, 10).getEvents().isEmpty());
+        CatalogEventResponse response = catalogEventService.readAfter(start, 10);
+        assertEquals(List.of(start + 2), response.getEvents().stream().map(CatalogEventDTO::getSequence).toList());
+        assertEquals(start + 2, response.getNextAfter());
+    }
+
+    @Test
+    void purgeKeepsWhatASubscriberHasNotRead() throws Exception {
+        for (int i = 0; i < 4; i++) {
+            append(CatalogEventType.PRODUCT_UPDATED, 1L);
+        }
+        //aceita o primeiro lote e falha nos outros: a posicao para em start + 2
+        AtomicInteger calls = new AtomicInteger();
+        CatalogEventService.Subscription subscription = catalogEventService.subscribe("test", start, 2, batch -> {
+            if (calls.incrementAndGet() > 1) {
+                throw new IllegalStateException("not now");
+            }
+        });
+        try {
+            await(() -> calls.get() > 1);
+            assertEquals(start + 2, subscription.position());
+
+            catalogEventServiceImpl.purge();
+            CatalogEventResponse response = catalogEventService.readAfter(start + 2, 10);
+            assertEquals(start + 3, response.getFirstAvailableSequence());
+            assertEquals(start + 4, response.getLastSequence());
+            assertEquals(List.of(start + 3, start + 4),
+                    response.getEvents().stream().map(CatalogEventDTO::getSequence).toList());
+
+            //o lote que falhou e entregue de novo
+            catalogEventServiceImpl.poll();
+            await(() -> calls.get() > 2);
+            assertEquals(start + 2, subscription.position());
+        } finally {
+            subscription.cancel();
+        }
+    }
+
+    private void append(CatalogEventType type, Long entityId) {
+        new TransactionTemplate(transactionManager).executeWithoutResult(status ->
+                catalogEventService.append(new CatalogEventService.Change(type, entityId, null, null)));
+    }
+
+    private static void await(BooleanSupplier condition) throws InterruptedException {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(10);
+        while (!condition.getAsBoolean()) {
+            assertTrue(System.nanoTime() < deadline, "condition not met in 10s");
+            Thread.sleep(20);
+        }
+    }
+}
@@ -0,0 +1,117 @@
+package com.ecommerce.project.service;
+
+import com.ecommerce.project.payload.CategoryDTO;
+import com.ecommerce.project.payload.ProductDTO;
+import com.ecommerce.project.payload.ReservationDTO;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.function.BooleanSupplier;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+//indice de busca e contadores de estoque so mudam depois do commit: uma escrita desfeita nao deixa rastro neles.
+//o indice segue o log de eventos, entao depois de um commit o teste espera o subscriber
+@SpringBootTest(properties = {
+        "spring.datasource.url=jdbc:h2:mem:write-rollback",
+        "project.search.index.enabled=true",
+        "project.inventory.flush-interval=1h"})
+class CatalogWriteRollbackTest {
+
+    @DynamicPropertySource
+    static void journal(DynamicPropertyRegistry registry) throws IOException {
+        String directory = Files.createTempDirectory("inventory-journal").toString();
+        registry.add("project.inventory.journal", () -> directory);
+    }
+
+    @Autowired
+    private ProductService productService;
+
+    @Autowired
+    private CategoryService categoryService;
+
+    @Autowired
+    private InventoryService inventoryService;
+
+    @Autowired
+    private ProductSearchIndex productSearchIndex;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    private Long categoryId;
+    private Long productId;
+    private ReservationDTO reservation;
+
+    @BeforeEach
+    void createProduct() throws InterruptedException {
+        categoryId = categoryService.createCategory(new CategoryDTO(null, "Rollback " + System.nanoTime()))
+                .getCategoryId();
+        productId = productService.addProduct(categoryId, product("Teapot " + System.nanoTime(), 10)).getProductId();
+        await(() -> productSearchIndex.search("teapot").contains(productId));
+        reservation = inventoryService.reserve(productId, 3);
+    }
+
+    @Test
+    void rolledBackUpdateKeepsIndexAndStock() throws InterruptedException {
+        inRolledBackTransaction(() -> productService.updateProduct(productId, product("Renamed kettle", 50)));
+
+        assertEquals(List.of(), productSearchIndex.search("renamed kettle"));
+        assertTrue(productSearchIndex.search("teapot").contains(productId));
+        assertEquals(10, inventoryService.getStock(productId).getOnHand());
+        assertEquals(3, inventoryService.getStock(productId).getReserved());
+
+        productService.updateProduct(productId, product("Renamed kettle", 50));
+        await(() -> productSearchIndex.search("renamed kettle").equals(List.of(productId)));
+        assertEquals(50, inventoryService.getStock(productId).getOnHand());
+    }
+
+    @Test
+    void rolledBackDeleteKeepsIndexAndReservations() throws InterruptedException {
+        inRolledBackTransaction(() -> productService.deleteProduct(productId));
+        inRolledBackTransaction(() -> categoryService.deleteCategory(categoryId));
+
+        assertTrue(productSearchIndex.search("teapot").contains(productId));
+        inventoryService.commit(reservation.getReservationId());
+        assertEquals(7, inventoryService.getStock(productId).getOnHand());
+
+        categoryService.deleteCategory(categoryId);
+        await(() -> !productSearchIndex.search("teapot").contains(productId));
+    }
+
+    private void inRolledBackTransaction(Runnable write) {
+        new TransactionTemplate(transactionManager).executeWithoutResult(status -> {
+            write.run();
+            status.setRollbackOnly();
+        });
+    }
+
+    private static void await(BooleanSupplier condition) throws InterruptedException {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(10);
+        while (!condition.getAsBoolean()) {
+            assertTrue(System.nanoTime() < deadline, "condition not met in 10s");
+            Thread.sleep(20);
+        }
+    }
+
+    private static ProductDTO product(String name, int quantity) {
+        ProductDTO product = new ProductDTO();
+        product.setProductName(name);
+        product.setDescription("Description of " + name);
+        product.setQuantity(quantity);
+        product.setPrice(20);
+        product.setDiscount(10);
+        return product;
+    }
+}
@@ -0,0 +1,228 @@
+package com.ecommerce.project.service;
+
+import com.ecommerce.project.exceptions.APIException;
+import com.ecommerce.project.model.Category;
+import com.ecommerce.project.model.Product;
+import com.ecommerce.project.payload.InventoryDTO;
+import com.ecommerce.project.payload.ReservationDTO;
+import com.ecommerce.project.repositories.CategoryRepository;
+import com.ecommerce.project.repositories.ProductRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+import org.springframework.test.util.AopTestUtils;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+//o flush automatico fica desligado na pratica para o teste controlar quando o banco e atualizado
+@SpringBootTest(properties = "project.inventory.flush-interval=1h")
+class InventoryServiceStressTest {
+
+    private static final int STOCK = 100;
+    private static final int THREADS = 32;
+
+    @DynamicPropertySource
+    static void journal(DynamicPropertyRegistry registry) throws IOException {
+        String directory = Files.createTempDirectory("inventory-journal").toString();
+        registry.add("project.inventory.journal", () -> directory);
+    }
+
+    @Autowired
+    private InventoryService inventoryService;
+
+    @Autowired
+    private InventoryJournal inventoryJournal;
+
+    @Autowired
+    private CategoryRepository categoryRepository;
+
+    @Autowired
+    private ProductRepository productRepository;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    private Long productId;
+
+    @BeforeEach
+    void createProduct() {
+        Category category = new Category();
+        category.setCategoryName("Stress " + System.nanoTime());
+        category = categoryRepository.save(category);
+
+        Product product = new Product();
+        product.setProductName("Flash sale item");
+        product.setDescription("Limited stock item for the stress test");
+        product.setImage("default");
+        product.setQuantity(STOCK);
+        product.setPrice(10.0);
+        product.setDiscount(0.0);
+        product.setSpecialPrice(10.0);
+        product.setCategory(category);
+        productId = productRepository.save(product).getProductId();
+    }
+
+    @Test
+    void concurrentCheckoutsNeverOversell() throws Exception {
+        AtomicLong committed = new AtomicLong();
+        AtomicLong negativeReads = new AtomicLong();
+        runConcurrently(() -> {
+            ThreadLocalRandom random = ThreadLocalRandom.current();
+            for (int i = 0; i < 200; i++) {
+                ReservationDTO reservation;
+                try {
+                    reservation = inventoryService.reserve(productId, 1 + random.nextInt(3));
+                } catch (APIException e) {
+                    continue;
+                }
+                if (inventoryService.getStock(productId).getAvailable() < 0) {
+                    negativeReads.incrementAndGet();
+                }
+                if (random.nextInt(3) == 0) {
+                    inventoryService.release(reservation.getReservationId());
+                } else {
+                    inventoryService.commit(reservation.getReservationId());
+                    committed.addAndGet(reservation.getQuantity());
+                }
+            }
+        });
+
+        InventoryDTO stock = inventoryService.getStock(productId);
+        assertEquals(0, negativeReads.get());
+        assertTrue(committed.get() <= STOCK);
+        assertEquals(STOCK - committed.get(), stock.getOnHand());
+        assertEquals(0, stock.getReserved());
+        assertEquals(stock.getOnHand(), stock.getAvailable());
+
+        inventoryService.flush();
+        assertEquals(stock.getOnHand(), quantityInDatabase());
+    }
+
+    @Test
+    void demandAboveStockSellsExactlyTheStock() throws Exception {
+        AtomicLong committed = new AtomicLong();
+        runConcurrently(() -> {
+            while (true) {
+                ReservationDTO reservation;
+                try {
+                    reservation = inventoryService.reserve(productId, 1);
+                } catch (APIException e) {
+                    return;
+                }
+                inventoryService.commit(reservation.getReservationId());
+                committed.incrementAndGet();
+            }
+        });
+
+        assertEquals(STOCK, committed.get());
+        assertEquals(0, inventoryService.getStock(productId).getOnHand());
+        assertThrows(APIException.class, () -> inventoryService.reserve(productId, 1));
+
+        inventoryService.flush();
+        assertEquals(0, quantityInDatabase());
+    }
+
+    @Test
+    void expiredReservationsGoBackToStock() {
+        Object target = AopTestUtils.getTargetObject(inventoryService);
+        Duration ttl = (Duration) ReflectionTestUtils.getField(target, "reservationTtl");
+        ReflectionTestUtils.setField(target, "reservationTtl", Duration.ofMillis(-1));
+        try {
+            ReservationDTO reservation = inventoryService.reserve(productId, 40);
+            assertEquals(STOCK - 40, inventoryService.getStock(productId).getAvailable());
+
+            inventoryService.expireReservations();
+
+            assertEquals(STOCK, inventoryService.getStock(productId).getAvailable());
+            assertThrows(RuntimeException.class, () -> inventoryService.commit(reservation.getReservationId()));
+        } finally {
+            ReflectionTestUtils.setField(target, "reservationTtl", ttl);
+        }
+    }
+
+    @Test
+    void replaceBelowOpenReservationsKeepsThem() {
+        ReservationDTO reservation = inventoryService.reserve(productId, 80);
+
+        inventoryService.replaceStock(productId, 50);
+        InventoryDTO stock = inventoryService.getStock(productId);
+        assertEquals(80, stock.getOnHand());
+        assertEquals(80, stock.getReserved());
+        assertEquals(0, stock.getAvailable());
+
+        inventoryService.commit(reservation.getReservationId());
+        assertEquals(0, inventoryService.getStock(productId).getOnHand());
+
+        inventoryService.replaceStock(productId, 30);
+        assertEquals(30, inventoryService.getStock(productId).getAvailable());
+    }
+
+    @Test
+    void unflushedCommitsAreRecoveredFromTheJournal() throws IOException {
+        ReservationDTO reservation = inventoryService.reserve(productId, 7);
+        inventoryService.commit(reservation.getReservationId());
+        assertEquals(STOCK, quantityInDatabase());
+
+        //simula um restart: um journal novo no mesmo diretorio so enxerga os segmentos anteriores
+        InventoryJournal restarted = new InventoryJournal();
+        ReflectionTestUtils.setField(restarted, "journalPath",
+                ReflectionTestUtils.getField(inventoryJournal, "journalPath"));
+        restarted.open();
+        try {
+            Map<Long, Long> recovered = restarted.recover();
+            assertEquals(STOCK - 7, recovered.get(productId));
+        } finally {
+            restarted.close();
+        }
+
+        inventoryService.flush();
+        assertEquals(STOCK - 7, quantityInDatabase());
+        assertFalse(inventoryService.getStock(productId).getAvailable() < 0);
+    }
+
+    private long quantityInDatabase() {
+        return jdbcTemplate.queryForObject("SELECT quantity FROM product WHERE product_id = ?", Long.class, productId);
+    }
+
+    private void runConcurrently(Runnable worker) throws Exception {
+        ExecutorService executor = Executors.newFixedThreadPool(THREADS);
+        CountDownLatch start = new CountDownLatch(1);
+        List<Future<?>> futures = new ArrayList<>();
+        try {
+            for (int i = 0; i < THREADS; i++) {
+                futures.add(executor.submit(() -> {
+                    start.await();
+                    worker.run();
+                    return null;
+                }));
+            }
+            start.countDown();
+            for (Future<?> future : futures) {
+                future.get();
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+}
@@ -0,0 +1,82 @@
+package com.ecommerce.project.service;
+
+import com.ecommerce.project.exceptions.APIException;
+import com.ecommerce.project.payload.CategoryDTO;
+import com.ecommerce.project.payload.ProductBatchRequest;
+import com.ecommerce.project.payload.ProductBatchResponse;
+import com.ecommerce.project.payload.ProductDTO;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+//o lote por categoria tem o mesmo teto do lote por ids
+@SpringBootTest(properties = {
+        "spring.datasource.url=jdbc:h2:mem:product-batch",
+        "project.batch.max-product-ids=2"})
+class ProductBatchServiceTest {
+
+    @DynamicPropertySource
+    static void journal(DynamicPropertyRegistry registry) throws IOException {
+        String directory = Files.createTempDirectory("inventory-journal").toString();
+        registry.add("project.inventory.journal", () -> directory);
+    }
+
+    @Autowired
+    private ProductBatchService productBatchService;
+
+    @Autowired
+    private ProductService productService;
+
+    @Autowired
+    private CategoryService categoryService;
+
+    @Autowired
+    private InventoryService inventoryService;
+
+    @Test
+    void categoryModeIsCappedLikeTheIdList() {
+        Long categoryId = category();
+        Long first = productService.addProduct(categoryId, product("Mug")).getProductId();
+        productService.addProduct(categoryId, product("Cup"));
+
+        ProductBatchRequest request = new ProductBatchRequest(null, categoryId, null, null, 7);
+        assertEquals(2, productBatchService.updateProducts(request).getAffectedProducts());
+
+        productService.addProduct(categoryId, product("Bowl"));
+        APIException tooMany = assertThrows(APIException.class, () -> productBatchService.updateProducts(
+                new ProductBatchRequest(null, categoryId, null, null, 9)));
+        assertEquals("A batch can have at most 2 products: category " + categoryId
+                + " has more, send productIds instead", tooMany.getMessage());
+        assertEquals(7, inventoryService.getStock(first).getOnHand());
+
+        assertThrows(APIException.class, () -> productBatchService.deleteProducts(
+                new ProductBatchRequest(null, categoryId, null, null, null)));
+        ProductBatchResponse deleted = productBatchService.deleteProducts(
+                new ProductBatchRequest(List.of(first, -1L), null, null, null, null));
+        assertEquals(1, deleted.getMatchedProducts());
+        assertEquals(List.of(-1L), deleted.getNotFoundIds());
+    }
+
+    private Long category() {
+        return categoryService.createCategory(new CategoryDTO(null, "Batch " + System.nanoTime())).getCategoryId();
+    }
+
+    private static ProductDTO product(String name) {
+        ProductDTO product = new ProductDTO();
+        product.setProductName(name);
+        product.setDescription("Description of " + name);
+        product.setQuantity(1);
+        product.setPrice(20);
+        product.setDiscount(10);
+        return product;
+    }
+}
@@ -0,0 +1,103 @@
+package com.ecommerce.project.service;
+
+import com.ecommerce.project.model.Product;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+//so o indice em memoria, sem banco: o rebuild do ApplicationReadyEvent nao roda aqui
+class ProductSearchIndexTest {
+
+    private ProductSearchIndex index;
+
+    @BeforeEach
+    void enable() {
+        index = new ProductSearchIndex();
+        ReflectionTestUtils.setField(index, "enabled", true);
+    }
+
+    @Test
+    void shortKeywordChecksEveryDocument() {
+        index.index(product(1, "Phone", "black"));
+        index.index(product(2, "Alpha kettle", "steel"));
+        index.index(product(3, "Camera", "with a strap"));
+
+        //menos de 3 chars nao tem trigrama: cai na varredura de todos os documentos
+        assertEquals(List.of(1L, 2L), index.search("ph"));
+        assertEquals(List.of(2L, 3L), index.search("ST"));
+        assertEquals(List.of(), index.search("zq"));
+    }
+
+    @Test
+    void everyTrigramOfTheKeywordMustMatch() {
+        index.index(product(1, "Red phone", "smart"));
+        index.index(product(2, "Red kettle", "electric"));
+        index.index(product(3, "Blue phone", "smart"));
+
+        assertEquals(List.of(1L, 3L), index.search("phone"));
+        assertEquals(List.of(1L), index.search("RED PHONE"));
+        assertEquals(List.of(), index.search("red toaster"));
+    }
+
+    @Test
+    void documentWithAllTrigramsButNotTheKeywordIsNotAHit() {
+        //tem abc, bca e cab, mas nao "abcab"
+        index.index(product(1, "abca bcab", "none"));
+        index.index(product(2, "xabcabx", "none"));
+
+        assertEquals(List.of(2L), index.search("abcab"));
+    }
+
+    @Test
+    void ranksExactNameThenPrefixThenNameThenDescription() {
+        index.index(product(1, "Light", "a lamp for the desk"));
+        index.index(product(2, "Desk lamp", "adjustable"));
+        index.index(product(3, "Lamp shade", "linen"));
+        index.index(product(4, "Lamp", "classic"));
+        index.index(product(5, "Floor lamp", "tall"));
+
+        //empate no score sai pelo id
+        assertEquals(List.of(4L, 3L, 2L, 5L, 1L), index.search("lamp"));
+    }
+
+    @Test
+    void updateReplacesTheOldTextAndRemoveDropsTheProduct() {
+        index.index(product(1, "Old kettle", "steel"));
+        index.index(product(2, "Kettle", "glass"));
+
+        index.index(product(1, "New toaster", "steel"));
+        assertEquals(List.of(2L), index.search("kettle"));
+        assertEquals(List.of(1L), index.search("toaster"));
+        assertEquals(List.of(), index.search("old"));
+
+        index.remove(1L);
+        assertEquals(List.of(), index.search("toaster"));
+        assertEquals(List.of(), index.search("steel"));
+        assertEquals(List.of(2L), index.search("e"));
+
+        //remover de novo ou um id que nunca existiu nao quebra nada
+        index.remove(1L);
+        index.remove(99L);
+        assertEquals(List.of(2L), index.search("kettle"));
+    }
+
+    @Test
+    void disabledIndexIgnoresWrites() {
+        ReflectionTestUtils.setField(index, "enabled", false);
+        index.index(product(1, "Phone", "black"));
+
+        assertEquals(List.of(), index.search("phone"));
+    }
+
+    private static Product product(long productId, String name, String description) {
+        Product product = new Product();
+        product.setProductId(productId);
+        product.setProductName(name);
+        product.setDescription(description);
+        return product;
+    }
+}